@@ -0,0 +1,88 @@
+package com.example.eshop.benchmark;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.money.Money;
+import com.example.eshop.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+    @Param({"10", "1000", "10000"})
+    int size;
+
+    private Product[] products;
+    private Product extra;
+    private Cart cart;
+    private CartItem firstItem;
+
+    @Setup
+    public void setUp() {
+        products = Fixtures.products(size + 1);
+        extra = products[size];
+        cart = new Cart();
+        for (int i = 0; i < size; i++) {
+            cart.addItem(products[i], 1 + i % 5);
+        }
+        firstItem = cart.getItems().getFirst();
+    }
+
+    // One add of a new line plus its removal, against a cart already holding `size` lines
+    @Benchmark
+    public Cart addAndRemoveItem() {
+        cart.addItem(extra, 1);
+        cart.removeItem(extra);
+        return cart;
+    }
+
+    @Benchmark
+    public Cart addExistingItem() {
+        cart.addItem(products[size / 2], 1);
+        cart.addItem(products[size / 2], -1);
+        return cart;
+    }
+
+    // Building a `size`-line cart from scratch, the bulk import case
+    @Benchmark
+    public Cart buildCart() {
+        Cart built = new Cart();
+        for (int i = 0; i < size; i++) {
+            built.addItem(products[i], 1);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotal() {
+        return cart.calculateTotal();
+    }
+
+    @Benchmark
+    public Money totalAfterQuantityChange() {
+        firstItem.setQuantity(firstItem.getQuantity() == 1 ? 2 : 1);
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal cartItemTotalPrice() {
+        return firstItem.getTotalPrice();
+    }
+}
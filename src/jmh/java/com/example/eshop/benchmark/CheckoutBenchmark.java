@@ -0,0 +1,65 @@
+package com.example.eshop.benchmark;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderService;
+import com.example.eshop.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutBenchmark {
+    @Param({"1", "10", "100"})
+    int lines;
+
+    private Product[] products;
+    private Cart cart;
+    private OrderService orderService;
+
+    @Setup
+    public void setUp() {
+        products = Fixtures.products(lines);
+        cart = fill(new Cart());
+        // Stub gateway so only our own checkout overhead is measured
+        orderService = new OrderService(amount -> true);
+    }
+
+    private Cart fill(Cart target) {
+        for (Product product : products) {
+            target.addItem(product, 2);
+        }
+        return target;
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return new Order(cart);
+    }
+
+    // placeOrder empties the cart, so each invocation refills it; compare with fillCart for the refill share
+    @Benchmark
+    public Order placeOrder() {
+        return orderService.placeOrder(fill(new Cart()));
+    }
+
+    @Benchmark
+    public Cart fillCart() {
+        return fill(new Cart());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.eshop.benchmark;
+
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+
+import java.math.BigDecimal;
+
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    static Product[] products(int count) {
+        Product[] products = new Product[count];
+        for (int i = 0; i < count; i++) {
+            BigDecimal price = BigDecimal.valueOf(100 + i % 9_900, 2);
+            products[i] = i % 2 == 0
+                    ? new PhysicalProduct("Physical " + i, "Benchmark product", price, 1.5, BigDecimal.ONE)
+                    : new DigitalProduct("Digital " + i, "Benchmark product", price, "https://example.com/download/" + i);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.eshop.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH CSV result file against a baseline taken the same way and exits non-zero if any
+ * benchmark got worse by more than the tolerance. Primary scores and the GC profiler's normalized
+ * allocation rate (B/op) are checked; other secondary metrics are too noisy to gate on.
+ * A missing baseline is reported and skipped: copy target/jmh-result.csv to the baseline path to record one.
+ *
+ * Usage: RegressionGate results.csv baseline.csv tolerancePercent
+ */
+public final class RegressionGate {
+    private static final String ALLOCATION_METRIC = ":gc.alloc.rate.norm";
+    // Allocation-free paths measure fractions of a byte per op; ignore changes below one byte
+    private static final double ALLOCATION_NOISE_BYTES = 1.0;
+
+    private RegressionGate() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: RegressionGate results.csv baseline.csv tolerancePercent");
+            System.exit(2);
+        }
+        Path results = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double tolerance = Double.parseDouble(args[2]) / 100.0;
+        if (!Files.exists(baseline)) {
+            System.out.println("No benchmark baseline at " + baseline + ", skipping regression check");
+            return;
+        }
+
+        Map<String, Score> current = read(results);
+        Map<String, Score> reference = read(baseline);
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : reference.entrySet()) {
+            Score before = entry.getValue();
+            Score after = current.get(entry.getKey());
+            if (after == null) {
+                continue;
+            }
+            // Throughput is better when higher; time and allocation per operation are better when lower
+            double change = before.higherIsBetter
+                    ? (before.value - after.value) / before.value
+                    : (after.value - before.value) / before.value;
+            String line = String.format("%-90s %14.3f -> %14.3f %s (%+.1f%%)",
+                    entry.getKey(), before.value, after.value, after.unit, change * 100);
+            System.out.println(line);
+            boolean withinNoise = entry.getKey().contains(ALLOCATION_METRIC)
+                    && Math.abs(after.value - before.value) < ALLOCATION_NOISE_BYTES;
+            if (before.value > 0 && change > tolerance && !withinNoise) {
+                regressions.add(line);
+            }
+        }
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " benchmark(s) regressed by more than " + args[2] + "%:");
+            regressions.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        Map<String, Score> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return scores;
+        }
+        List<String> header = split(lines.getFirst());
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> fields = split(line);
+            if (fields.size() < header.size()) {
+                continue;
+            }
+            String name = fields.get(benchmark);
+            boolean allocation = name.endsWith(ALLOCATION_METRIC);
+            if (name.contains(":") && !allocation) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(name).append(' ').append(fields.get(mode));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ")) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(fields.get(i));
+                }
+            }
+            double value = Double.parseDouble(fields.get(score).replace(',', '.'));
+            boolean higherIsBetter = !allocation && "thrpt".equals(fields.get(mode));
+            scores.put(key.toString(), new Score(value, fields.get(unit), higherIsBetter));
+        }
+        return scores;
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Score {
+        private final double value;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        private Score(double value, String unit, boolean higherIsBetter) {
+            this.value = value;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+}
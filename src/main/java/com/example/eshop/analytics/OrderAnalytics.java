@@ -0,0 +1,122 @@
+package com.example.eshop.analytics;
+
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.money.Money;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderStatus;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collector;
+
+/**
+ * Aggregates order revenue per product, per status and per day. Revenue, per product and per day as well as in
+ * total, only counts orders that were charged: PAID, SHIPPED or DELIVERED. Cancelled orders and orders whose payment
+ * failed or is unresolved still show up in the order count and the per-status totals. Lines are counted at the price
+ * they were sold for. Run the {@link #collector()} on a parallel
+ * stream: each fork/join leaf fills its own accumulator of plain long counters in minor units,
+ * so there is no shared state and no BigDecimal allocation per order, and partial results are merged pairwise.
+ * Sums are exact; an overflow throws {@link ArithmeticException} instead of wrapping.
+ */
+public final class OrderAnalytics {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final Set<OrderStatus> CHARGED = EnumSet.of(OrderStatus.PAID, OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+    private OrderAnalytics() {
+    }
+
+    public static RevenueReport analyze(Collection<Order> orders) {
+        return orders.parallelStream().collect(collector());
+    }
+
+    public static Collector<Order, ?, RevenueReport> collector() {
+        return Collector.of(Accumulator::new, Accumulator::add, Accumulator::merge, Accumulator::toReport,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private static final class Accumulator {
+        private Currency currency;
+        private long orderCount;
+        private long revenue;
+        private final long[] revenueByStatus = new long[STATUSES.length];
+        // Mutable cells so accumulating doesn't box: {revenue, quantity} per product, {revenue} per day
+        private final Map<UUID, long[]> byProduct = new HashMap<>();
+        private final Map<LocalDate, long[]> byDay = new HashMap<>();
+
+        private void add(Order order) {
+            Money total = order.getTotal();
+            useCurrency(total.getCurrency());
+            orderCount++;
+            long amount = total.getMinorUnits();
+            int status = order.getStatus().ordinal();
+            revenueByStatus[status] = Math.addExact(revenueByStatus[status], amount);
+            if (!CHARGED.contains(order.getStatus())) {
+                return;
+            }
+            revenue = Math.addExact(revenue, amount);
+            long[] day = byDay.computeIfAbsent(order.getOrderDate().toLocalDate(), date -> new long[1]);
+            day[0] = Math.addExact(day[0], amount);
+            for (CartItem item : order.getItems()) {
+                // Order lines are frozen, so this is the amount the line was sold for
+                Money line = item.getLineTotal();
+                useCurrency(line.getCurrency());
+                long[] product = byProduct.computeIfAbsent(item.getProduct().getId(), id -> new long[2]);
+                product[0] = Math.addExact(product[0], line.getMinorUnits());
+                product[1] = Math.addExact(product[1], item.getQuantity());
+            }
+        }
+
+        private Accumulator merge(Accumulator other) {
+            if (other.currency != null) {
+                useCurrency(other.currency);
+            }
+            orderCount += other.orderCount;
+            revenue = Math.addExact(revenue, other.revenue);
+            for (int i = 0; i < revenueByStatus.length; i++) {
+                revenueByStatus[i] = Math.addExact(revenueByStatus[i], other.revenueByStatus[i]);
+            }
+            other.byProduct.forEach((id, cells) -> byProduct.merge(id, cells, (mine, theirs) -> {
+                mine[0] = Math.addExact(mine[0], theirs[0]);
+                mine[1] = Math.addExact(mine[1], theirs[1]);
+                return mine;
+            }));
+            other.byDay.forEach((date, cells) -> byDay.merge(date, cells, (mine, theirs) -> {
+                mine[0] = Math.addExact(mine[0], theirs[0]);
+                return mine;
+            }));
+            return this;
+        }
+
+        private void useCurrency(Currency seen) {
+            if (currency == null) {
+                currency = seen;
+            } else if (!currency.equals(seen)) {
+                throw new IllegalArgumentException("Cannot aggregate " + seen + " revenue with " + currency);
+            }
+        }
+
+        private RevenueReport toReport() {
+            Currency reportCurrency = currency != null ? currency : Money.DEFAULT_CURRENCY;
+            Map<OrderStatus, Money> statusRevenue = new HashMap<>();
+            for (OrderStatus status : STATUSES) {
+                statusRevenue.put(status, Money.ofMinor(revenueByStatus[status.ordinal()], reportCurrency));
+            }
+            Map<UUID, Money> productRevenue = new HashMap<>();
+            Map<UUID, Long> productQuantity = new HashMap<>();
+            for (Map.Entry<UUID, long[]> entry : byProduct.entrySet()) {
+                productRevenue.put(entry.getKey(), Money.ofMinor(entry.getValue()[0], reportCurrency));
+                productQuantity.put(entry.getKey(), entry.getValue()[1]);
+            }
+            Map<LocalDate, Money> dayRevenue = new HashMap<>();
+            for (Map.Entry<LocalDate, long[]> entry : byDay.entrySet()) {
+                dayRevenue.put(entry.getKey(), Money.ofMinor(entry.getValue()[0], reportCurrency));
+            }
+            return new RevenueReport(reportCurrency, orderCount, Money.ofMinor(revenue, reportCurrency), productRevenue, productQuantity, statusRevenue, dayRevenue);
+        }
+    }
+}
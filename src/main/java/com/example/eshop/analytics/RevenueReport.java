@@ -0,0 +1,67 @@
+package com.example.eshop.analytics;
+
+import com.example.eshop.money.Money;
+import com.example.eshop.order.OrderStatus;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+public class RevenueReport {
+    private final Currency currency;
+    private final long orderCount;
+    private final Money totalRevenue;
+    private final Map<UUID, Money> revenueByProduct;
+    private final Map<UUID, Long> quantityByProduct;
+    private final Map<OrderStatus, Money> revenueByStatus;
+    private final NavigableMap<LocalDate, Money> revenueByDay;
+
+    RevenueReport(Currency currency, long orderCount, Money totalRevenue, Map<UUID, Money> revenueByProduct, Map<UUID, Long> quantityByProduct,
+                  Map<OrderStatus, Money> revenueByStatus, Map<LocalDate, Money> revenueByDay) {
+        this.currency = currency;
+        this.orderCount = orderCount;
+        this.totalRevenue = totalRevenue;
+        this.revenueByProduct = Collections.unmodifiableMap(revenueByProduct);
+        this.quantityByProduct = Collections.unmodifiableMap(quantityByProduct);
+        this.revenueByStatus = Collections.unmodifiableMap(new EnumMap<>(revenueByStatus));
+        this.revenueByDay = Collections.unmodifiableNavigableMap(new TreeMap<>(revenueByDay));
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    // Every order, whatever its status
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    // Sum of the totals of charged orders: PAID, SHIPPED or DELIVERED
+    public Money getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    // Charged orders only, at the prices the lines were sold for
+    public Map<UUID, Money> getRevenueByProduct() {
+        return revenueByProduct;
+    }
+
+    // Units sold in charged orders
+    public Map<UUID, Long> getQuantityByProduct() {
+        return quantityByProduct;
+    }
+
+    // Order totals per status, charged or not; every status is present, with zero if no order has it
+    public Map<OrderStatus, Money> getRevenueByStatus() {
+        return revenueByStatus;
+    }
+
+    // Charged orders only; days in ascending order, days without charged orders are absent
+    public NavigableMap<LocalDate, Money> getRevenueByDay() {
+        return revenueByDay;
+    }
+}
@@ -1,43 +1,189 @@
 package com.example.eshop.cart;
 
+import com.example.eshop.metrics.CheckoutMetrics;
+import com.example.eshop.metrics.Metrics;
+import com.example.eshop.money.Money;
 import com.example.eshop.product.Product;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Currency;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
-public class Cart {
-    private final List<CartItem> items = new ArrayList<>();
+public class Cart implements ShoppingCart {
+    // Keyed by product id, insertion ordered so getItems() keeps the order items were first added in
+    private final Map<UUID, CartItem> items = new LinkedHashMap<>();
+    private List<CartItem> itemsView;
+    // Running sum of line totals in minor units, kept current by add/remove/setQuantity/clear
+    private long total;
+    private Currency currency = Money.DEFAULT_CURRENCY;
+    // Converted lazily and reused until the total changes
+    private Money totalMoney;
+    private BigDecimal totalAmount;
+    // Global price version the running total was last reconciled against
+    private long pricedAt = Product.currentPriceVersion();
+    // Set while the current lines are frozen in a snapshot; the cart copies them back before its next change
+    private CartSnapshot snapshot;
 
+    @Override
     public void addItem(Product product, int quantity) {
-        Optional<CartItem> existingItem = items.stream()
-                .filter(item -> item.getProduct().equals(product))
-                .findFirst();
+        thaw();
+        CartItem existingItem = items.get(product.getId());
 
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + quantity);
+        if (existingItem != null) {
+            existingItem.setQuantity(existingItem.getQuantity() + quantity);
         } else {
-            items.add(new CartItem(product, quantity));
+            Currency productCurrency = product.getUnitPrice().getCurrency();
+            if (!items.isEmpty() && !productCurrency.equals(currency)) {
+                throw new IllegalArgumentException("Cart is priced in " + currency + ", not " + productCurrency);
+            }
+            CartItem item = new CartItem(product, quantity);
+            items.put(product.getId(), item);
+            item.attach(this);
+            currency = productCurrency;
+            lineTotalChanged(0, item.pricedTotal());
+            itemsView = null;
         }
     }
 
+    @Override
     public void removeItem(Product product) {
-        items.removeIf(item -> item.getProduct().equals(product));
+        thaw();
+        CartItem item = items.remove(product.getId());
+        if (item != null) {
+            // Subtract exactly what this line contributed to the running total
+            item.detach();
+            lineTotalChanged(item.pricedTotal(), 0);
+            itemsView = null;
+        }
+    }
+
+    @Override
+    public Optional<CartItem> getItem(Product product) {
+        thaw();
+        return Optional.ofNullable(items.get(product.getId()));
+    }
+
+    @Override
+    public void setQuantity(Product product, int quantity) {
+        thaw();
+        CartItem item = items.get(product.getId());
+        if (item == null) {
+            throw new IllegalArgumentException("Product is not in the cart");
+        }
+        item.setQuantity(quantity);
+    }
+
+    @Override
+    public boolean contains(Product product) {
+        return items.containsKey(product.getId());
+    }
+
+    @Override
+    public int size() {
+        return items.size();
     }
 
+    @Override
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
     public List<CartItem> getItems() {
-        return Collections.unmodifiableList(items);
+        thaw();
+        // The ordered list is only rebuilt after lines were added or removed
+        if (itemsView == null) {
+            itemsView = Collections.unmodifiableList(new ArrayList<>(items.values()));
+        }
+        return itemsView;
     }
 
+    @Override
     public BigDecimal calculateTotal() {
-        return items.stream()
-                .map(CartItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Money money = getTotal();
+        if (totalAmount == null) {
+            totalAmount = money.toBigDecimal();
+        }
+        return totalAmount;
     }
 
+    @Override
+    public Money getTotal() {
+        long priceVersion = Product.currentPriceVersion();
+        if (priceVersion != pricedAt) {
+            CheckoutMetrics metrics = Metrics.get();
+            long started = metrics.start();
+            thaw();
+            // Some product was repriced since the last read; only stale lines are recomputed
+            for (CartItem item : items.values()) {
+                item.refreshPrice();
+            }
+            pricedAt = priceVersion;
+            metrics.cartRepriced(started);
+        }
+        if (totalMoney == null) {
+            totalMoney = Money.ofMinor(total, currency);
+        }
+        return totalMoney;
+    }
+
+    @Override
     public void clear() {
+        if (snapshot == null) {
+            for (CartItem item : items.values()) {
+                item.detach();
+            }
+        }
+        snapshot = null;
         items.clear();
+        itemsView = null;
+        total = 0;
+        totalMoney = null;
+        totalAmount = null;
+        pricedAt = Product.currentPriceVersion();
+    }
+
+    /**
+     * Freezes the current lines and total for checkout. The lines are handed over rather than copied: the cart
+     * only copies them back if it is used again afterwards, so the usual snapshot-then-clear costs no copying.
+     */
+    @Override
+    public CartSnapshot snapshot() {
+        if (snapshot == null) {
+            Money frozenTotal = getTotal();
+            List<CartItem> lines = getItems();
+            for (CartItem item : lines) {
+                item.freeze();
+            }
+            snapshot = new CartSnapshot(lines, frozenTotal);
+        }
+        return snapshot;
+    }
+
+    // Replaces lines frozen by snapshot() with editable copies before the cart changes or hands them out
+    private void thaw() {
+        if (snapshot == null) {
+            return;
+        }
+        snapshot = null;
+        for (Map.Entry<UUID, CartItem> entry : items.entrySet()) {
+            CartItem frozen = entry.getValue();
+            CartItem item = new CartItem(frozen.getProduct(), frozen.getQuantity());
+            item.attach(this);
+            entry.setValue(item);
+            lineTotalChanged(frozen.pricedTotal(), item.pricedTotal());
+        }
+        itemsView = null;
+    }
+
+    void lineTotalChanged(long previous, long current) {
+        total = Math.addExact(total, Math.subtractExact(current, previous));
+        totalMoney = null;
+        totalAmount = null;
     }
 }
@@ -1,18 +1,36 @@
 package com.example.eshop.cart;
 
+import com.example.eshop.money.Money;
 import com.example.eshop.product.Product;
 import java.math.BigDecimal;
+import java.util.Currency;
 
 public class CartItem {
     private final Product product;
     private int quantity;
+    // Line total in minor units of the currency below
+    private long totalPrice;
+    private Currency currency;
+    private long priceVersion;
+    // Set for lines restored at the price they were sold for; they never follow the product's current price
+    private final Money soldAt;
+    private Cart cart;
+    // Frozen lines belong to a CartSnapshot: quantity and price no longer change
+    private boolean frozen;
 
     public CartItem(Product product, int quantity) {
+        this(product, quantity, null);
+    }
+
+    // Restores a line at the unit price it was sold for, e.g. when decoding an order; the product's price isn't read
+    public CartItem(Product product, int quantity, Money unitPrice) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
         this.product = product;
         this.quantity = quantity;
+        this.soldAt = unitPrice;
+        reprice();
     }
 
     public Product getProduct() {
@@ -24,13 +42,90 @@ public class CartItem {
     }
 
     public void setQuantity(int quantity) {
+        if (frozen) {
+            throw new UnsupportedOperationException("Line belongs to a checked-out cart snapshot");
+        }
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
+        long previous = totalPrice;
+        int previousQuantity = this.quantity;
         this.quantity = quantity;
+        try {
+            reprice();
+        } catch (ArithmeticException e) {
+            this.quantity = previousQuantity;
+            throw e;
+        }
+        if (cart != null) {
+            cart.lineTotalChanged(previous, totalPrice);
+        }
     }
 
     public BigDecimal getTotalPrice() {
-        return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        return getLineTotal().toBigDecimal();
+    }
+
+    public Money getLineTotal() {
+        refreshPrice();
+        return Money.ofMinor(totalPrice, currency);
+    }
+
+    // The unit price this line is priced at, which for a frozen or restored line is the one it was sold for
+    public Money getUnitPrice() {
+        refreshPrice();
+        return Money.ofMinor(totalPrice / quantity, currency);
+    }
+
+    // Line total in minor units as last priced, without checking for a newer product price
+    long pricedTotal() {
+        return totalPrice;
+    }
+
+    void attach(Cart cart) {
+        this.cart = cart;
+    }
+
+    void detach() {
+        this.cart = null;
+    }
+
+    void freeze() {
+        this.cart = null;
+        this.frozen = true;
+    }
+
+    // A frozen copy at the price this line was last priced at, without checking for a newer product price
+    CartItem frozenCopy() {
+        CartItem copy = new CartItem(product, quantity, Money.ofMinor(totalPrice / quantity, currency));
+        copy.freeze();
+        return copy;
+    }
+
+    // Recomputes the line total if the product was repriced since this line last looked; returns whether it changed
+    boolean refreshPrice() {
+        if (frozen || soldAt != null || priceVersion == product.getPriceVersion()) {
+            return false;
+        }
+        long previous = totalPrice;
+        reprice();
+        if (cart != null) {
+            cart.lineTotalChanged(previous, totalPrice);
+        }
+        return true;
+    }
+
+    private void reprice() {
+        if (soldAt != null) {
+            this.totalPrice = Math.multiplyExact(soldAt.getMinorUnits(), quantity);
+            this.currency = soldAt.getCurrency();
+            return;
+        }
+        // Read the version first so a concurrent setPrice is picked up on the next refresh rather than lost
+        long version = product.getPriceVersion();
+        Money unitPrice = product.getUnitPrice();
+        this.totalPrice = Math.multiplyExact(unitPrice.getMinorUnits(), quantity);
+        this.currency = unitPrice.getCurrency();
+        this.priceVersion = version;
     }
 }
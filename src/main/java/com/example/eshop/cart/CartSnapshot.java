@@ -0,0 +1,48 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.money.Money;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a cart's lines and total at one moment, which an order takes over as-is. Its lines are
+ * frozen: their quantity and price can no longer change, and {@link CartItem#setQuantity} throws.
+ */
+public final class CartSnapshot {
+    private final List<CartItem> items;
+    private final Money total;
+
+    // items must be frozen lines in a list nobody else will modify
+    CartSnapshot(List<CartItem> items, Money total) {
+        this.items = items;
+        this.total = total;
+    }
+
+    // Freezes copies of the given lines, e.g. ones restored from storage, recorded with the total they were sold for.
+    // Each copy keeps the price its line was priced at; the products' current prices are never read
+    public static CartSnapshot of(Collection<CartItem> items, Money total) {
+        List<CartItem> frozen = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            frozen.add(item.frozenCopy());
+        }
+        return new CartSnapshot(Collections.unmodifiableList(frozen), total);
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,488 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.codec.BinaryCodec;
+import com.example.eshop.product.Product;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Carts by session id, split across independently locked shards. Carts are handed out as {@link Lease}s: a leased
+ * cart is pinned in memory until the lease is closed, so it can't be spilled while a request is changing it.
+ * Leasing a resident cart is a lock-free map read, a CAS on the entry's pin count and setting a reference bit.
+ * Each shard keeps at most {@code maxCarts / shards} carts in memory; beyond that a clock hand sweeps the shard,
+ * giving recently used carts a second chance and spilling the first unpinned one that wasn't touched since the
+ * last sweep. While every cart in a shard is leased, the shard holds more than its share until one is released.
+ * Carts idle for longer than the idle timeout are spilled by {@link #evictIdle()}.
+ * Spilled carts are appended to a local file as {@link BinaryCodec} cart records and loaded back on their next lookup.
+ * Sessions left spilled for longer than the spilled timeout are dropped by {@link #expireSpilled()}, which also
+ * compacts the file once most of it is records that were loaded back, removed or expired.
+ * A cart is not thread-safe: use it from one request at a time, and lease it again per request, since a cart
+ * object that has been spilled is no longer the one the store hands out.
+ */
+public class CartStore implements AutoCloseable {
+    private static final Duration DEFAULT_SPILLED_TIMEOUT = Duration.ofDays(7);
+
+    private final Shard[] shards;
+    private final int maxCartsPerShard;
+    private final long idleTimeoutNanos;
+    private final long spilledTimeoutNanos;
+    private final LongSupplier clock;
+    private final BinaryCodec codec;
+    private final Path spillPath;
+    private final FileChannel spill;
+    private final Object spillLock = new Object();
+    private long spillEnd;
+    private int spilledCarts;
+    // Bytes of the spill file still holding spilled carts; the rest is dead records awaiting compaction
+    private long spilledBytes;
+
+    /**
+     * @param products resolves spilled product ids back to products; lines whose product is gone are dropped
+     */
+    public CartStore(Path spillFile, Function<UUID, Product> products, int maxCarts, Duration idleTimeout) throws IOException {
+        this(spillFile, products, maxCarts, idleTimeout, DEFAULT_SPILLED_TIMEOUT,
+                Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1), System::nanoTime);
+    }
+
+    public CartStore(Path spillFile, Function<UUID, Product> products, int maxCarts, Duration idleTimeout, int shardCount, LongSupplier clock) throws IOException {
+        this(spillFile, products, maxCarts, idleTimeout, DEFAULT_SPILLED_TIMEOUT, shardCount, clock);
+    }
+
+    /**
+     * @param spilledTimeout how long after its last use a spilled session is kept before {@link #expireSpilled()} drops it
+     */
+    public CartStore(Path spillFile, Function<UUID, Product> products, int maxCarts, Duration idleTimeout, Duration spilledTimeout,
+                     int shardCount, LongSupplier clock) throws IOException {
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Shard count must be a positive power of two");
+        }
+        if (maxCarts < shardCount) {
+            throw new IllegalArgumentException("Cart limit must be at least the shard count");
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+        if (spilledTimeout.isNegative() || spilledTimeout.isZero()) {
+            throw new IllegalArgumentException("Spilled timeout must be positive");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.maxCartsPerShard = maxCarts / shardCount;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.spilledTimeoutNanos = spilledTimeout.toNanos();
+        this.clock = clock;
+        this.codec = new BinaryCodec(products);
+        this.spillPath = spillFile;
+        this.spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Leases the session's cart if it has one; close the lease once the request is done with the cart
+    public Optional<Lease> get(String sessionId) {
+        return Optional.ofNullable(lookup(sessionId, false));
+    }
+
+    public Lease getOrCreate(String sessionId) {
+        return lookup(sessionId, true);
+    }
+
+    public void remove(String sessionId) {
+        Shard shard = shardFor(sessionId);
+        shard.lock.lock();
+        try {
+            Entry entry = shard.resident.remove(sessionId);
+            if (entry != null) {
+                entry.removed = true;
+            }
+            Spilled spilled = shard.spilled.remove(sessionId);
+            if (spilled != null) {
+                spillReleased(spilled);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Spills every unleased cart untouched for longer than the idle timeout; returns how many were spilled
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (int i = shard.ring.size() - 1; i >= 0; i--) {
+                    Entry entry = shard.ring.get(i);
+                    if (entry.removed) {
+                        dropFromRing(shard, i);
+                    } else if (now - entry.lastAccess > idleTimeoutNanos && evict(shard, i)) {
+                        evicted++;
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Drops every spilled session unused for longer than the spilled timeout, then compacts the spill file if
+     * more than half of it is dead records. Returns how many sessions were dropped.
+     */
+    public int expireSpilled() {
+        long now = clock.getAsLong();
+        int expired = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (Iterator<Spilled> it = shard.spilled.values().iterator(); it.hasNext(); ) {
+                    Spilled spilled = it.next();
+                    if (now - spilled.lastAccess > spilledTimeoutNanos) {
+                        it.remove();
+                        spillReleased(spilled);
+                        expired++;
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        compactIfSparse();
+        return expired;
+    }
+
+    public int residentCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.resident.size();
+        }
+        return count;
+    }
+
+    public int spilledCount() {
+        synchronized (spillLock) {
+            return spilledCarts;
+        }
+    }
+
+    public long spillFileSize() {
+        synchronized (spillLock) {
+            return spillEnd;
+        }
+    }
+
+    // Drops all spilled carts along with the spill file
+    @Override
+    public void close() throws IOException {
+        synchronized (spillLock) {
+            spill.close();
+        }
+        Files.deleteIfExists(spillPath);
+    }
+
+    private Lease lookup(String sessionId, boolean create) {
+        Shard shard = shardFor(sessionId);
+        Entry entry = shard.resident.get(sessionId);
+        if (entry != null && entry.pin()) {
+            touch(entry);
+            return new Lease(entry);
+        }
+        shard.lock.lock();
+        try {
+            entry = shard.resident.get(sessionId);
+            // Under the lock a resident entry can't be mid-eviction, so pinning it succeeds
+            if (entry != null && entry.pin()) {
+                touch(entry);
+                return new Lease(entry);
+            }
+            Spilled spilled = shard.spilled.remove(sessionId);
+            Cart cart;
+            if (spilled != null && clock.getAsLong() - spilled.lastAccess <= spilledTimeoutNanos) {
+                cart = load(spilled.offset);
+                spillReleased(spilled);
+            } else {
+                if (spilled != null) {
+                    spillReleased(spilled); // Expired: the session starts over
+                }
+                if (!create) {
+                    return null;
+                }
+                cart = new Cart();
+            }
+            if (shard.resident.size() >= maxCartsPerShard) {
+                evictOne(shard);
+            }
+            entry = new Entry(sessionId, cart);
+            entry.pin();
+            touch(entry);
+            shard.resident.put(sessionId, entry);
+            shard.ring.add(entry);
+            return new Lease(entry);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private void touch(Entry entry) {
+        entry.lastAccess = clock.getAsLong();
+        if (!entry.referenced) {
+            entry.referenced = true; // Skip the volatile write when the bit is already set
+        }
+    }
+
+    // Called with the shard lock held: second-chance sweep until an unreferenced, unleased cart is found and spilled.
+    // Two full turns clear every reference bit, so if nothing was spilled by then every cart is leased
+    private void evictOne(Shard shard) {
+        for (int steps = 2 * shard.ring.size(); steps > 0 && !shard.ring.isEmpty(); steps--) {
+            if (shard.hand >= shard.ring.size()) {
+                shard.hand = 0;
+            }
+            Entry entry = shard.ring.get(shard.hand);
+            if (entry.removed) {
+                dropFromRing(shard, shard.hand);
+            } else if (entry.referenced) {
+                entry.referenced = false;
+                shard.hand++;
+            } else if (evict(shard, shard.hand)) {
+                return;
+            } else {
+                shard.hand++;
+            }
+        }
+    }
+
+    // Called with the shard lock held; a leased cart stays resident and false is returned
+    private boolean evict(Shard shard, int ringIndex) {
+        Entry entry = shard.ring.get(ringIndex);
+        if (!entry.seal()) {
+            return false;
+        }
+        dropFromRing(shard, ringIndex);
+        shard.resident.remove(entry.sessionId, entry);
+        shard.spilled.put(entry.sessionId, append(entry.cart, entry.lastAccess));
+        return true;
+    }
+
+    private static void dropFromRing(Shard shard, int ringIndex) {
+        // Order within the ring doesn't matter to the clock, so swap the last entry in instead of shifting
+        int last = shard.ring.size() - 1;
+        shard.ring.set(ringIndex, shard.ring.get(last));
+        shard.ring.remove(last);
+    }
+
+    private Spilled append(Cart cart, long lastAccess) {
+        ByteBuffer record = ByteBuffer.allocate(BinaryCodec.maxCartSize(cart.size()));
+        codec.writeCart(record, cart);
+        record.flip();
+        synchronized (spillLock) {
+            long offset = spillEnd;
+            try {
+                long position = offset;
+                while (record.hasRemaining()) {
+                    position += spill.write(record, position);
+                }
+                spillEnd = position;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not spill cart", e);
+            }
+            spilledCarts++;
+            spilledBytes += record.limit();
+            return new Spilled(offset, record.limit(), lastAccess);
+        }
+    }
+
+    private Cart load(long offset) {
+        ByteBuffer record;
+        synchronized (spillLock) {
+            try {
+                ByteBuffer header = ByteBuffer.allocate(BinaryCodec.HEADER_SIZE);
+                readFully(header, offset);
+                record = ByteBuffer.allocate(BinaryCodec.recordLength(header.flip()));
+                readFully(record, offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load spilled cart", e);
+            }
+        }
+        return codec.readCart(record.flip());
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (spill.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Spill file ends inside a cart record");
+            }
+        }
+    }
+
+    private void spillReleased(Spilled spilled) {
+        synchronized (spillLock) {
+            spilledCarts--;
+            spilledBytes -= spilled.length;
+            if (spilledCarts == 0) {
+                // Every spilled cart was loaded back or removed, so the file can start over
+                try {
+                    spill.truncate(0);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                spillEnd = 0;
+            }
+        }
+    }
+
+    // Slides the live records down over the dead ones in offset order, then cuts off the tail. Holds every shard
+    // lock, always taken in shard order, so no cart is spilled or loaded while records move
+    private void compactIfSparse() {
+        synchronized (spillLock) {
+            if (spillEnd - spilledBytes <= spilledBytes) {
+                return;
+            }
+        }
+        for (Shard shard : shards) {
+            shard.lock.lock();
+        }
+        try {
+            synchronized (spillLock) {
+                List<Map.Entry<String, Spilled>> live = new ArrayList<>(spilledCarts);
+                for (Shard shard : shards) {
+                    live.addAll(shard.spilled.entrySet());
+                }
+                live.sort(Comparator.comparingLong(e -> e.getValue().offset));
+                long position = 0;
+                try {
+                    for (Map.Entry<String, Spilled> record : live) {
+                        Spilled spilled = record.getValue();
+                        if (spilled.offset != position) {
+                            ByteBuffer bytes = ByteBuffer.allocate(spilled.length);
+                            readFully(bytes, spilled.offset);
+                            bytes.flip();
+                            long at = position;
+                            while (bytes.hasRemaining()) {
+                                at += spill.write(bytes, at);
+                            }
+                            record.setValue(new Spilled(position, spilled.length, spilled.lastAccess));
+                        }
+                        position += spilled.length;
+                    }
+                    spill.truncate(position);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not compact the spill file", e);
+                }
+                spillEnd = position;
+            }
+        } finally {
+            for (int i = shards.length - 1; i >= 0; i--) {
+                shards[i].lock.unlock();
+            }
+        }
+    }
+
+    private Shard shardFor(String sessionId) {
+        int h = sessionId.hashCode();
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entry> resident = new ConcurrentHashMap<>();
+        // Guarded by lock
+        private final List<Entry> ring = new ArrayList<>();
+        private final Map<String, Spilled> spilled = new HashMap<>();
+        private int hand;
+    }
+
+    /**
+     * A cart checked out of the store. The cart stays in memory, and is the one the store hands out, until the
+     * lease is closed. Close it from the thread that used the cart; closing twice does nothing.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Cart getCart() {
+            if (closed) {
+                throw new IllegalStateException("Lease is closed");
+            }
+            return entry.cart;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                entry.pins.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Spilled {
+        private final long offset;
+        private final int length;
+        private final long lastAccess;
+
+        private Spilled(long offset, int length, long lastAccess) {
+            this.offset = offset;
+            this.length = length;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static final class Entry {
+        private static final int SEALED = -1;
+
+        private final String sessionId;
+        private final Cart cart;
+        // Open leases, or SEALED once the cart is being spilled and can no longer be leased
+        private final AtomicInteger pins = new AtomicInteger();
+        private volatile boolean referenced;
+        private volatile long lastAccess;
+        // Guarded by the shard lock
+        private boolean removed;
+
+        private Entry(String sessionId, Cart cart) {
+            this.sessionId = sessionId;
+            this.cart = cart;
+        }
+
+        private boolean pin() {
+            int current;
+            do {
+                current = pins.get();
+                if (current == SEALED) {
+                    return false;
+                }
+            } while (!pins.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        // Succeeds only while no lease is open, and then keeps new ones from being taken
+        private boolean seal() {
+            return pins.compareAndSet(0, SEALED);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.metrics.CheckoutMetrics;
+import com.example.eshop.metrics.Metrics;
+import com.example.eshop.money.Money;
+import com.example.eshop.product.Product;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A {@link ShoppingCart} for very large carts (e.g. procurement imports) that keeps its lines in parallel
+ * arrays instead of one {@link CartItem} plus one map entry per line: a product reference, an int quantity
+ * and a long line total, found through an open-addressing index of ints. {@link CartItem}s are only created
+ * when asked for, as views of the line at that moment; {@link CartItem#setQuantity} on a view writes through
+ * to the cart until a line is removed or the cart is cleared. A removed line leaves a gap that is skipped
+ * until gaps outnumber lines, when one pass closes them all, so removal is amortized O(1) and keeps
+ * insertion order.
+ */
+public class CompactCart implements ShoppingCart {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // A null product marks a removed line's gap
+    private Product[] products;
+    private int[] quantities;
+    // Line totals in minor units, all repriced together when any product price changes
+    private long[] lineTotals;
+    // Slots in use including gaps, and the lines among them still in the cart
+    private int used;
+    private int size;
+    // Open-addressing (linear probing) table of line index + 1, 0 meaning empty; kept at most half full
+    private int[] index;
+    private long total;
+    private Currency currency = Money.DEFAULT_CURRENCY;
+    private Money totalMoney;
+    private BigDecimal totalAmount;
+    private long pricedAt = Product.currentPriceVersion();
+    private List<CartItem> itemsView;
+    // Bumped when lines are removed, so views of removed lines stop writing through
+    private long generation;
+
+    public CompactCart() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompactCart(int expectedLines) {
+        if (expectedLines < 0) {
+            throw new IllegalArgumentException("Expected line count cannot be negative");
+        }
+        int capacity = Math.max(expectedLines, 1);
+        products = new Product[capacity];
+        quantities = new int[capacity];
+        lineTotals = new long[capacity];
+        index = new int[tableSizeFor(capacity)];
+    }
+
+    @Override
+    public void addItem(Product product, int quantity) {
+        int line = find(product.getId());
+        if (line >= 0) {
+            setLineQuantity(line, Math.addExact(quantities[line], quantity));
+            return;
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        Currency productCurrency = product.getUnitPrice().getCurrency();
+        if (size > 0 && !productCurrency.equals(currency)) {
+            throw new IllegalArgumentException("Cart is priced in " + currency + ", not " + productCurrency);
+        }
+        long lineTotal = Math.multiplyExact(product.getUnitPrice().getMinorUnits(), quantity);
+        long newTotal = Math.addExact(total, lineTotal);
+        if (used == products.length) {
+            grow();
+        }
+        // Index first, so a failure leaves the arrays untouched
+        insert(product.getId(), used);
+        products[used] = product;
+        quantities[used] = quantity;
+        lineTotals[used] = lineTotal;
+        used++;
+        size++;
+        currency = productCurrency;
+        totalChanged(newTotal);
+    }
+
+    @Override
+    public void removeItem(Product product) {
+        int line = find(product.getId());
+        if (line < 0) {
+            return;
+        }
+        long newTotal = Math.subtractExact(total, lineTotals[line]);
+        // The index keeps pointing at the gap; lookups probe past it
+        products[line] = null;
+        lineTotals[line] = 0;
+        size--;
+        if (used - size > size) {
+            compact();
+        }
+        generation++;
+        totalChanged(newTotal);
+    }
+
+    @Override
+    public Optional<CartItem> getItem(Product product) {
+        int line = find(product.getId());
+        return line < 0 ? Optional.empty() : Optional.of(view(line));
+    }
+
+    @Override
+    public void setQuantity(Product product, int quantity) {
+        int line = find(product.getId());
+        if (line < 0) {
+            throw new IllegalArgumentException("Product is not in the cart");
+        }
+        setLineQuantity(line, quantity);
+    }
+
+    @Override
+    public boolean contains(Product product) {
+        return find(product.getId()) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public List<CartItem> getItems() {
+        if (itemsView == null) {
+            reconcilePrices();
+            CartItem[] views = new CartItem[size];
+            for (int i = 0, line = 0; i < used; i++) {
+                if (products[i] != null) {
+                    views[line++] = view(i);
+                }
+            }
+            itemsView = Collections.unmodifiableList(Arrays.asList(views));
+        }
+        return itemsView;
+    }
+
+    @Override
+    public BigDecimal calculateTotal() {
+        Money money = getTotal();
+        if (totalAmount == null) {
+            totalAmount = money.toBigDecimal();
+        }
+        return totalAmount;
+    }
+
+    @Override
+    public Money getTotal() {
+        reconcilePrices();
+        if (totalMoney == null) {
+            totalMoney = Money.ofMinor(total, currency);
+        }
+        return totalMoney;
+    }
+
+    // Lines only exist as arrays here, so the snapshot is the one place a checkout materializes every line
+    @Override
+    public CartSnapshot snapshot() {
+        Money frozenTotal = getTotal();
+        CartItem[] lines = new CartItem[size];
+        for (int i = 0, line = 0; i < used; i++) {
+            if (products[i] != null) {
+                lines[line] = new CartItem(products[i], quantities[i]);
+                lines[line++].freeze();
+            }
+        }
+        return new CartSnapshot(Collections.unmodifiableList(Arrays.asList(lines)), frozenTotal);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(products, 0, used, null);
+        Arrays.fill(index, 0);
+        used = 0;
+        size = 0;
+        generation++;
+        pricedAt = Product.currentPriceVersion();
+        totalChanged(0);
+    }
+
+    private void setLineQuantity(int line, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        long lineTotal = Math.multiplyExact(products[line].getUnitPrice().getMinorUnits(), quantity);
+        long newTotal = Math.addExact(Math.subtractExact(total, lineTotals[line]), lineTotal);
+        quantities[line] = quantity;
+        lineTotals[line] = lineTotal;
+        totalChanged(newTotal);
+    }
+
+    private void reconcilePrices() {
+        long priceVersion = Product.currentPriceVersion();
+        if (priceVersion == pricedAt) {
+            return;
+        }
+        CheckoutMetrics metrics = Metrics.get();
+        long started = metrics.start();
+        // No per-line versions are kept, so every line is repriced; that's a multiply per line and no allocation
+        long newTotal = 0;
+        for (int i = 0; i < used; i++) {
+            if (products[i] == null) {
+                continue;
+            }
+            lineTotals[i] = Math.multiplyExact(products[i].getUnitPrice().getMinorUnits(), quantities[i]);
+            newTotal = Math.addExact(newTotal, lineTotals[i]);
+        }
+        pricedAt = priceVersion;
+        metrics.cartRepriced(started);
+        if (newTotal != total) {
+            totalChanged(newTotal);
+        } else {
+            itemsView = null;
+        }
+    }
+
+    private void totalChanged(long newTotal) {
+        total = newTotal;
+        totalMoney = null;
+        totalAmount = null;
+        itemsView = null;
+    }
+
+    private CartItem view(int line) {
+        return new LineView(products[line], quantities[line], generation);
+    }
+
+    private int find(UUID id) {
+        int mask = index.length - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            Product product = products[entry - 1];
+            if (product != null && product.getId().equals(id)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insert(UUID id, int line) {
+        if ((used + 1) * 2 > index.length) {
+            rebuildIndex(index.length * 2);
+        }
+        int mask = index.length - 1;
+        int slot = hash(id) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = line + 1;
+    }
+
+    private void rebuildIndex(int tableSize) {
+        index = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int line = 0; line < used; line++) {
+            if (products[line] == null) {
+                continue; // Gaps are never looked up
+            }
+            int slot = hash(products[line].getId()) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = line + 1;
+        }
+    }
+
+    // Closes every gap in one pass, keeping the remaining lines in order
+    private void compact() {
+        int line = 0;
+        for (int i = 0; i < used; i++) {
+            if (products[i] != null) {
+                products[line] = products[i];
+                quantities[line] = quantities[i];
+                lineTotals[line] = lineTotals[i];
+                line++;
+            }
+        }
+        Arrays.fill(products, line, used, null);
+        used = line;
+        rebuildIndex(index.length);
+    }
+
+    private void grow() {
+        if (used - size >= size) {
+            compact(); // Mostly gaps: closing them frees enough room
+            return;
+        }
+        int capacity = products.length + (products.length >> 1) + 1;
+        products = Arrays.copyOf(products, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        lineTotals = Arrays.copyOf(lineTotals, capacity);
+    }
+
+    private static int tableSizeFor(int lines) {
+        return Integer.highestOneBit(Math.max(lines, 2) * 4 - 1);
+    }
+
+    private static int hash(UUID id) {
+        // Time-ordered ids share their high bits, so mix both halves before masking
+        long bits = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+        int h = (int) (bits ^ (bits >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    private final class LineView extends CartItem {
+        private final long viewGeneration;
+
+        private LineView(Product product, int quantity, long viewGeneration) {
+            super(product, quantity);
+            this.viewGeneration = viewGeneration;
+        }
+
+        @Override
+        public void setQuantity(int quantity) {
+            if (viewGeneration == generation) {
+                int line = find(getProduct().getId());
+                if (line >= 0) {
+                    setLineQuantity(line, quantity);
+                }
+            }
+            super.setQuantity(quantity);
+        }
+    }
+}
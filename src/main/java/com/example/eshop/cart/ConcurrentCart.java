@@ -0,0 +1,207 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.money.Money;
+import com.example.eshop.product.Product;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cart that may be updated from several threads at once, e.g. a customer's web and mobile sessions.
+ * Each line is an immutable value replaced atomically through {@link ConcurrentHashMap#compute}, so updates
+ * to different products run in parallel. Reads are optimistic: they copy the lines and retry if any write
+ * started or finished meanwhile. After {@value #OPTIMISTIC_ATTEMPTS} failed attempts a read takes the gate
+ * exclusively, which waits for the writers in flight and holds new ones off for one copy, so a steady stream
+ * of writes can't starve it.
+ * <p>
+ * Writes are not lock-free: every write takes the gate's shared read lock and bumps two counters, so all
+ * writers update the same few words, and a read that falls back to the gate stalls every writer for one copy.
+ * That is a deliberate trade for a cart, which sees a handful of devices rather than many writing threads: it
+ * keeps snapshots consistent with one shared lock instead of a per-line versioning scheme.
+ */
+public class ConcurrentCart {
+    private static final int OPTIMISTIC_ATTEMPTS = 64;
+
+    private final ConcurrentHashMap<UUID, Line> lines = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger activeWriters = new AtomicInteger();
+    private final AtomicLong modifications = new AtomicLong();
+    // Shared by writers; taken exclusively only by a read that lost too many optimistic attempts
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+
+    public void addItem(Product product, int quantity) {
+        incrementQuantity(product, quantity);
+    }
+
+    public int incrementQuantity(Product product, int delta) {
+        beginWrite();
+        try {
+            return lines.compute(product.getId(), (id, line) -> {
+                if (line == null) {
+                    requirePositive(delta);
+                    return new Line(product, sequence.getAndIncrement(), delta);
+                }
+                int quantity = Math.addExact(line.quantity, delta);
+                requirePositive(quantity);
+                return new Line(product, line.sequence, quantity);
+            }).quantity;
+        } finally {
+            endWrite();
+        }
+    }
+
+    public void setQuantity(Product product, int quantity) {
+        requirePositive(quantity);
+        beginWrite();
+        try {
+            Line updated = lines.computeIfPresent(product.getId(), (id, line) -> new Line(product, line.sequence, quantity));
+            if (updated == null) {
+                throw new IllegalArgumentException("Product is not in the cart");
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    public void removeItem(Product product) {
+        beginWrite();
+        try {
+            lines.remove(product.getId());
+        } finally {
+            endWrite();
+        }
+    }
+
+    // Takes away the given quantities, e.g. the lines of an order checked out from a snapshot, keeping anything added since
+    public void removeAll(Collection<CartItem> items) {
+        beginWrite();
+        try {
+            for (CartItem item : items) {
+                lines.computeIfPresent(item.getProduct().getId(), (id, line) -> {
+                    int quantity = line.quantity - item.getQuantity();
+                    return quantity > 0 ? new Line(line.product, line.sequence, quantity) : null;
+                });
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    public int getQuantity(Product product) {
+        Line line = lines.get(product.getId());
+        return line == null ? 0 : line.quantity;
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    public List<CartItem> getItems() {
+        List<Line> copy = copyLines();
+        List<CartItem> items = new ArrayList<>(copy.size());
+        for (Line line : copy) {
+            items.add(new CartItem(line.product, line.quantity));
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    public BigDecimal calculateTotal() {
+        return getTotal().toBigDecimal();
+    }
+
+    public Money getTotal() {
+        Money total = null;
+        for (Line line : copyLines()) {
+            Money lineTotal = line.product.getUnitPrice().times(line.quantity);
+            total = total == null ? lineTotal : total.plus(lineTotal);
+        }
+        return total == null ? Money.zero(Money.DEFAULT_CURRENCY) : total;
+    }
+
+    public void clear() {
+        beginWrite();
+        try {
+            lines.clear();
+        } finally {
+            endWrite();
+        }
+    }
+
+    public Cart snapshot() {
+        Cart cart = new Cart();
+        for (Line line : copyLines()) {
+            cart.addItem(line.product, line.quantity);
+        }
+        return cart;
+    }
+
+    // The lines at a single point in time, in the order they were first added
+    private List<Line> copyLines() {
+        List<Line> copy = null;
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS && copy == null; attempt++) {
+            long before = modifications.get();
+            if (activeWriters.get() == 0) {
+                List<Line> candidate = new ArrayList<>(lines.values());
+                // No write was in flight at either end and none completed in between, so the copy is a single point in time
+                if (activeWriters.get() == 0 && modifications.get() == before) {
+                    copy = candidate;
+                }
+            }
+            if (copy == null) {
+                Thread.onSpinWait();
+            }
+        }
+        if (copy == null) {
+            gate.writeLock().lock();
+            try {
+                copy = new ArrayList<>(lines.values());
+            } finally {
+                gate.writeLock().unlock();
+            }
+        }
+        copy.sort(Comparator.comparingLong(line -> line.sequence));
+        return copy;
+    }
+
+    private void beginWrite() {
+        gate.readLock().lock();
+        activeWriters.incrementAndGet();
+    }
+
+    private void endWrite() {
+        modifications.incrementAndGet();
+        activeWriters.decrementAndGet();
+        gate.readLock().unlock();
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+    }
+
+    private static final class Line {
+        private final Product product;
+        private final long sequence;
+        private final int quantity;
+
+        private Line(Product product, long sequence, int quantity) {
+            this.product = product;
+            this.sequence = sequence;
+            this.quantity = quantity;
+        }
+    }
+}
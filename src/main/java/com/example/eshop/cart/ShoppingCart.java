@@ -0,0 +1,71 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.money.Money;
+import com.example.eshop.product.Product;
+import com.example.eshop.promotion.CartPromotions;
+import com.example.eshop.shipping.ShippingCalculator;
+import com.example.eshop.shipping.ShippingZone;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * What checkout, promotions and shipping need from a cart, whatever way it stores its lines: {@link Cart}
+ * keeps one {@link CartItem} per line, {@link CompactCart} keeps parallel arrays for very large carts.
+ * Lines are listed in the order their products were first added.
+ */
+public interface ShoppingCart {
+    void addItem(Product product, int quantity);
+
+    default void addItems(Map<Product, Integer> quantities) {
+        // Validate everything up front so a bad entry doesn't leave the cart half-updated
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+        }
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            addItem(entry.getKey(), entry.getValue());
+        }
+    }
+
+    void removeItem(Product product);
+
+    Optional<CartItem> getItem(Product product);
+
+    void setQuantity(Product product, int quantity);
+
+    boolean contains(Product product);
+
+    int size();
+
+    boolean isEmpty();
+
+    List<CartItem> getItems();
+
+    BigDecimal calculateTotal();
+
+    Money getTotal();
+
+    default BigDecimal calculateTotalWithShipping(ShippingCalculator shipping, ShippingZone zone) {
+        return getTotalWithShipping(shipping, zone).toBigDecimal();
+    }
+
+    default Money getTotalWithShipping(ShippingCalculator shipping, ShippingZone zone) {
+        return getTotal().plus(shipping.quote(getItems(), zone));
+    }
+
+    default BigDecimal calculateDiscountedTotal(CartPromotions promotions) {
+        return getDiscountedTotal(promotions).toBigDecimal();
+    }
+
+    default Money getDiscountedTotal(CartPromotions promotions) {
+        return promotions.evaluate(this).getTotal();
+    }
+
+    void clear();
+
+    // Freezes the current lines and total for checkout
+    CartSnapshot snapshot();
+}
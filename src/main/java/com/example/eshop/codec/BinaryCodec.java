@@ -0,0 +1,414 @@
+package com.example.eshop.codec;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.cart.ShoppingCart;
+import com.example.eshop.money.Money;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Schema-versioned binary encoding of products, cart lines, carts and orders, written to and read from a
+ * {@link ByteBuffer} in place. Every record is an envelope of a schema version byte, a type byte and the body
+ * length as an int, followed by the body. In bodies, counts and quantities are varints, UUIDs two longs,
+ * decimals a zigzag varint unscaled value and scale, amounts zigzag varint minor units plus the currency code,
+ * and statuses their ordinal. Lines, carts and orders refer to products by id; only product records embed one.
+ * Orders also carry the unit price each line was sold for, so restoring one never reads current product prices.
+ * <p>
+ * Compatibility: a new schema version may only append fields to the end of a body and constants to the end of
+ * an enum. Readers decode the fields they know and step over the rest of the body using its length, so records
+ * from a newer writer stay readable, and fields missing from an older record get defaults. The one exception is
+ * an order whose status was appended after the reader was built: guessing a status could settle the order
+ * wrongly, so such a record is refused with {@link IllegalStateException} rather than read.
+ */
+public class BinaryCodec {
+    public static final byte SCHEMA_VERSION = 1;
+    public static final int HEADER_SIZE = 2 + Integer.BYTES;
+
+    private static final byte PRODUCT = 1;
+    private static final byte CART_ITEM = 2;
+    private static final byte CART = 3;
+    private static final byte ORDER = 4;
+
+    private static final byte PHYSICAL = 0;
+    private static final byte DIGITAL = 1;
+
+    // Product id and a quantity of up to five varint bytes
+    private static final int MAX_LINE_SIZE = Long.BYTES * 2 + 5;
+    private static final int MAX_VARLONG_SIZE = 10;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Function<UUID, Product> products;
+
+    /**
+     * @param products resolves the product ids in lines, carts and orders back to products when decoding
+     */
+    public BinaryCodec(Function<UUID, Product> products) {
+        this.products = products;
+    }
+
+    // Bytes a buffer needs to take any cart with this many lines
+    public static int maxCartSize(int lines) {
+        return HEADER_SIZE + 5 + lines * MAX_LINE_SIZE;
+    }
+
+    // Bytes a buffer needs to take any order with this many lines
+    public static int maxOrderSize(int lines) {
+        // Id, date (seconds and nanos), status, total (minor units and currency), line count, lines with their unit prices
+        return HEADER_SIZE + Long.BYTES * 2 + MAX_VARLONG_SIZE + 5 + 5 + MAX_VARLONG_SIZE + 3 + 5
+                + lines * (MAX_LINE_SIZE + MAX_VARLONG_SIZE);
+    }
+
+    // Id of the order record starting at the buffer's position, read without resolving its products; the position doesn't move
+    public static UUID orderId(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.get(start + 1) != ORDER) {
+            throw new IllegalStateException("Expected record type " + ORDER + " but found " + buffer.get(start + 1));
+        }
+        return new UUID(buffer.getLong(start + HEADER_SIZE), buffer.getLong(start + HEADER_SIZE + Long.BYTES));
+    }
+
+    // Length, header included, of the record starting at the buffer's position; the position doesn't move
+    public static int recordLength(ByteBuffer buffer) {
+        int length = buffer.getInt(buffer.position() + 2);
+        if (length < 0) {
+            throw new IllegalStateException("Corrupt record length " + length);
+        }
+        return HEADER_SIZE + length;
+    }
+
+    // Moves past the record at the buffer's position, whatever its type or version
+    public static void skip(ByteBuffer buffer) {
+        buffer.position(buffer.position() + recordLength(buffer));
+    }
+
+    public void writeProduct(ByteBuffer buffer, Product product) {
+        int lengthAt = begin(buffer, PRODUCT);
+        if (product instanceof PhysicalProduct physical) {
+            buffer.put(PHYSICAL);
+            writeProductFields(buffer, product);
+            buffer.putDouble(physical.getWeight());
+            putDecimal(buffer, physical.getShippingCost());
+        } else if (product instanceof DigitalProduct digital) {
+            buffer.put(DIGITAL);
+            writeProductFields(buffer, product);
+            putString(buffer, digital.getDownloadUrl());
+        } else {
+            throw new IllegalArgumentException("Cannot encode products of type " + product.getClass().getName());
+        }
+        end(buffer, lengthAt);
+    }
+
+    // The product is not added to any catalog
+    public Product readProduct(ByteBuffer buffer) {
+        int end = open(buffer, PRODUCT);
+        byte kind = buffer.get();
+        UUID id = getUuid(buffer);
+        String name = getString(buffer);
+        String description = getString(buffer);
+        BigDecimal price = getDecimal(buffer);
+        Product product = switch (kind) {
+            case PHYSICAL -> new PhysicalProduct(id, name, description, price, buffer.getDouble(), getDecimal(buffer));
+            case DIGITAL -> new DigitalProduct(id, name, description, price, getString(buffer));
+            default -> throw new IllegalStateException("Unknown product kind " + kind);
+        };
+        close(buffer, end);
+        return product;
+    }
+
+    public void writeItem(ByteBuffer buffer, CartItem item) {
+        int lengthAt = begin(buffer, CART_ITEM);
+        putLine(buffer, item);
+        end(buffer, lengthAt);
+    }
+
+    public CartItem readItem(ByteBuffer buffer) {
+        int end = open(buffer, CART_ITEM);
+        UUID productId = getUuid(buffer);
+        int quantity = getVarint(buffer);
+        CartItem item = new CartItem(requireProduct(productId), quantity);
+        close(buffer, end);
+        return item;
+    }
+
+    public void writeCart(ByteBuffer buffer, ShoppingCart cart) {
+        int lengthAt = begin(buffer, CART);
+        List<CartItem> items = cart.getItems();
+        putVarint(buffer, items.size());
+        for (CartItem item : items) {
+            putLine(buffer, item);
+        }
+        end(buffer, lengthAt);
+    }
+
+    // Decodes into a new cart at current prices; lines whose product no longer resolves are dropped
+    public Cart readCart(ByteBuffer buffer) {
+        int end = open(buffer, CART);
+        int count = getVarint(buffer);
+        Cart cart = new Cart();
+        for (int i = 0; i < count; i++) {
+            UUID productId = getUuid(buffer);
+            int quantity = getVarint(buffer);
+            Product product = products.apply(productId);
+            if (product != null) {
+                cart.addItem(product, quantity);
+            }
+        }
+        close(buffer, end);
+        return cart;
+    }
+
+    public void writeOrder(ByteBuffer buffer, Order order) {
+        int lengthAt = begin(buffer, ORDER);
+        putUuid(buffer, order.getId());
+        putVarlong(buffer, zigzag(order.getOrderDate().toEpochSecond(ZoneOffset.UTC)));
+        putVarint(buffer, order.getOrderDate().getNano());
+        putVarint(buffer, order.getStatus().ordinal());
+        putMoney(buffer, order.getTotal());
+        List<CartItem> items = order.getItems();
+        putVarint(buffer, items.size());
+        for (CartItem item : items) {
+            putLine(buffer, item);
+            // In the order's currency
+            putVarlong(buffer, zigzag(item.getUnitPrice().getMinorUnits()));
+        }
+        end(buffer, lengthAt);
+    }
+
+    // Restores the order with the total and line prices it was placed for; every product it references must still resolve
+    public Order readOrder(ByteBuffer buffer) {
+        int end = open(buffer, ORDER);
+        UUID id = getUuid(buffer);
+        LocalDateTime orderDate = LocalDateTime.ofEpochSecond(unzigzag(getVarlong(buffer)), getVarint(buffer), ZoneOffset.UTC);
+        int ordinal = getVarint(buffer);
+        if (ordinal >= STATUSES.length) {
+            throw new IllegalStateException("Order " + id + " has unknown status ordinal " + ordinal);
+        }
+        Money total = getMoney(buffer);
+        int count = getVarint(buffer);
+        List<CartItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = requireProduct(getUuid(buffer));
+            int quantity = getVarint(buffer);
+            Money unitPrice = Money.ofMinor(unzigzag(getVarlong(buffer)), total.getCurrency());
+            items.add(new CartItem(product, quantity, unitPrice));
+        }
+        close(buffer, end);
+        return new Order(id, items, total, orderDate, STATUSES[ordinal]);
+    }
+
+    private Product requireProduct(UUID id) {
+        Product product = products.apply(id);
+        if (product == null) {
+            throw new IllegalStateException("Unknown product " + id);
+        }
+        return product;
+    }
+
+    private static void writeProductFields(ByteBuffer buffer, Product product) {
+        putUuid(buffer, product.getId());
+        putString(buffer, product.getName());
+        putString(buffer, product.getDescription());
+        putDecimal(buffer, product.getPrice());
+    }
+
+    private static void putLine(ByteBuffer buffer, CartItem item) {
+        putUuid(buffer, item.getProduct().getId());
+        putVarint(buffer, item.getQuantity());
+    }
+
+    // Writes the header with a placeholder length and returns where the length goes
+    private static int begin(ByteBuffer buffer, byte type) {
+        buffer.put(SCHEMA_VERSION);
+        buffer.put(type);
+        int lengthAt = buffer.position();
+        buffer.putInt(0);
+        return lengthAt;
+    }
+
+    private static void end(ByteBuffer buffer, int lengthAt) {
+        buffer.putInt(lengthAt, buffer.position() - lengthAt - Integer.BYTES);
+    }
+
+    // Checks the header and returns where the body ends
+    private static int open(ByteBuffer buffer, byte type) {
+        byte version = buffer.get();
+        byte actual = buffer.get();
+        int length = buffer.getInt();
+        if (version < 1) {
+            throw new IllegalStateException("Corrupt schema version " + version);
+        }
+        if (actual != type) {
+            throw new IllegalStateException("Expected a record of type " + type + " but found type " + actual);
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalStateException("Record length " + length + " exceeds the " + buffer.remaining() + " bytes left");
+        }
+        return buffer.position() + length;
+    }
+
+    // Steps over fields appended by newer schema versions
+    private static void close(ByteBuffer buffer, int end) {
+        if (buffer.position() > end) {
+            throw new IllegalStateException("Record body is shorter than its fields");
+        }
+        buffer.position(end);
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        putVarlong(buffer, value & 0xFFFFFFFFL);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        long value = getVarlong(buffer);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Varint " + value + " is out of int range");
+        }
+        return (int) value;
+    }
+
+    private static void putVarlong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarlong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varint is longer than ten bytes");
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    // Scale as zigzag + 1, with 0 meaning null, then the unscaled value
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        long unscaled;
+        try {
+            unscaled = value.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Decimal " + value + " has more than 64 bits of precision", e);
+        }
+        putVarlong(buffer, zigzag(value.scale()) + 1);
+        putVarlong(buffer, zigzag(unscaled));
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        long scale = getVarlong(buffer);
+        if (scale == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(unzigzag(getVarlong(buffer)), (int) unzigzag(scale - 1));
+    }
+
+    private static void putMoney(ByteBuffer buffer, Money money) {
+        putVarlong(buffer, zigzag(money.getMinorUnits()));
+        String code = money.getCurrency().getCurrencyCode();
+        for (int i = 0; i < 3; i++) {
+            buffer.put((byte) code.charAt(i));
+        }
+    }
+
+    private static Money getMoney(ByteBuffer buffer) {
+        long minorUnits = unzigzag(getVarlong(buffer));
+        char[] code = {(char) buffer.get(), (char) buffer.get(), (char) buffer.get()};
+        return Money.ofMinor(minorUnits, Currency.getInstance(new String(code)));
+    }
+
+    // Length + 1 as a varint, with 0 meaning null, then UTF-8 encoded straight into the buffer
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = codePointAt(value, i);
+            i += Character.charCount(codePoint);
+            length += codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+        }
+        putVarint(buffer, length + 1);
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = codePointAt(value, i);
+            i += Character.charCount(codePoint);
+            if (codePoint < 0x80) {
+                buffer.put((byte) codePoint);
+            } else if (codePoint < 0x800) {
+                buffer.put((byte) (0xC0 | codePoint >> 6));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                buffer.put((byte) (0xE0 | codePoint >> 12));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            }
+        }
+    }
+
+    // Unpaired surrogates can't be encoded in UTF-8; like String.getBytes, write them as '?'
+    private static int codePointAt(String value, int index) {
+        int codePoint = value.codePointAt(index);
+        return codePoint < 0x10000 && Character.isSurrogate((char) codePoint) ? '?' : codePoint;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarint(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.eshop.id;
+
+import java.util.UUID;
+
+public interface IdGenerator {
+    UUID nextId();
+
+    static IdGenerator random() {
+        return UUID::randomUUID;
+    }
+}
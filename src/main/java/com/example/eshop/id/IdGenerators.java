@@ -0,0 +1,24 @@
+package com.example.eshop.id;
+
+import java.util.Objects;
+import java.util.UUID;
+
+// Process-wide generator used by the Product and Order constructors
+public final class IdGenerators {
+    private static volatile IdGenerator current = new TimeOrderedIdGenerator();
+
+    private IdGenerators() {
+    }
+
+    public static IdGenerator get() {
+        return current;
+    }
+
+    public static void set(IdGenerator generator) {
+        current = Objects.requireNonNull(generator, "generator");
+    }
+
+    public static UUID nextId() {
+        return current.nextId();
+    }
+}
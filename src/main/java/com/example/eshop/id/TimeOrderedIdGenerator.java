@@ -0,0 +1,53 @@
+package com.example.eshop.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * UUIDv7 ids (RFC 9562): 48-bit Unix milliseconds, then a 12-bit counter, then 62 random bits.
+ * The millisecond and counter are advanced together with a single CAS, so ids from one generator are
+ * strictly increasing even within a millisecond or if the clock steps back. Randomness comes from
+ * {@link ThreadLocalRandom} instead of {@link java.security.SecureRandom}, which never blocks or contends.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+    private static final int COUNTER_BITS = 12;
+
+    private final LongSupplier clock;
+    // (millis << COUNTER_BITS) | counter of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    public TimeOrderedIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID nextId() {
+        long now = clock.getAsLong() << COUNTER_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            // A counter overflow simply borrows the next millisecond
+            next = Math.max(now, previous + 1);
+        } while (!last.compareAndSet(previous, next));
+
+        long millis = next >>> COUNTER_BITS;
+        long counter = next & ((1L << COUNTER_BITS) - 1);
+        long mostSignificant = (millis << 16) | 0x7000L | counter;
+        long leastSignificant = (ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    public static long timestampMillis(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a time-ordered id: " + id);
+        }
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.eshop.importer;
+
+import com.example.eshop.product.Product;
+import com.example.eshop.product.ProductCatalog;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads a product feed into a catalog. The file is split into fixed-size chunks that parser threads claim one
+ * at a time and read through a memory mapping; a line belongs to the chunk it starts in. Parsers build products
+ * into batches and hand them over through a small bounded queue, so they block rather than pile up products when
+ * the catalog falls behind, and the importing thread adds each batch under a single catalog lock acquisition.
+ * Malformed lines are rejected and counted without stopping the import. Products are added in no particular order;
+ * if the import fails, products from batches already added stay in the catalog.
+ */
+public class CatalogImporter {
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    // How far past its chunk a parser may read to finish the chunk's last line
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+    private final ProductCatalog catalog;
+    private final int threads;
+    private final int batchSize;
+    private final int chunkSize;
+
+    public CatalogImporter(ProductCatalog catalog) {
+        this(catalog, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_CHUNK_SIZE);
+    }
+
+    public CatalogImporter(ProductCatalog catalog, int threads, int batchSize, int chunkSize) {
+        if (threads <= 0 || batchSize <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Threads, batch size and chunk size must be greater than zero");
+        }
+        this.catalog = catalog;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportResult importFeed(Path feed) throws IOException {
+        return importFeed(feed, FeedFormat.of(feed), ImportProgressListener.NONE);
+    }
+
+    public ImportResult importFeed(Path feed, FeedFormat format, ImportProgressListener listener) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(feed, StandardOpenOption.READ)) {
+            Run run = new Run(channel, format, listener);
+            return run.execute(started);
+        }
+    }
+
+    private final class Run {
+        // Marks a parser as finished; compared by identity
+        private final List<Product> done = new ArrayList<>(0);
+
+        private final FileChannel channel;
+        private final FeedFormat format;
+        private final ImportProgressListener listener;
+        private final long size;
+        private final long chunks;
+        private final BlockingQueue<List<Product>> batches = new ArrayBlockingQueue<>(threads * 2);
+        private final AtomicLong nextChunk = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong bytesParsed = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Run(FileChannel channel, FeedFormat format, ImportProgressListener listener) throws IOException {
+            this.channel = channel;
+            this.format = format;
+            this.listener = listener;
+            this.size = channel.size();
+            this.chunks = (size + chunkSize - 1) / chunkSize;
+        }
+
+        private ImportResult execute(long started) throws IOException {
+            int parserCount = (int) Math.max(Math.min(threads, chunks), 1);
+            List<Thread> parsers = new ArrayList<>(parserCount);
+            for (int i = 0; i < parserCount; i++) {
+                parsers.add(Thread.ofPlatform().name("catalog-import-", i).daemon().start(this::parseChunks));
+            }
+            long imported = 0;
+            try {
+                for (int finished = 0; finished < parserCount; ) {
+                    List<Product> batch = batches.take();
+                    if (batch == done) {
+                        finished++;
+                        continue;
+                    }
+                    imported += catalog.addAll(batch);
+                    listener.progress(imported, rejected.get(), bytesParsed.get(), size);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Catalog import was interrupted");
+            } finally {
+                // Unblocks parsers left waiting on a full queue if adding a batch failed
+                parsers.forEach(Thread::interrupt);
+            }
+            Throwable error = failure.get();
+            if (error instanceof UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (error instanceof RuntimeException e) {
+                throw e;
+            }
+            if (error instanceof Error e) {
+                throw e;
+            }
+            return new ImportResult(imported, rejected.get(), size, Duration.ofNanos(System.nanoTime() - started));
+        }
+
+        private void parseChunks() {
+            try {
+                FeedParser parser = format.newParser();
+                ProductRow row = new ProductRow();
+                List<Product> batch = new ArrayList<>(batchSize);
+                long chunk;
+                while (failure.get() == null && (chunk = nextChunk.getAndIncrement()) < chunks) {
+                    batch = parseChunk(chunk, parser, row, batch);
+                }
+                if (!batch.isEmpty()) {
+                    batches.put(batch);
+                }
+            } catch (InterruptedException e) {
+                return; // The import was abandoned
+            } catch (IOException e) {
+                failure.compareAndSet(null, new UncheckedIOException(e));
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            }
+            try {
+                batches.put(done);
+            } catch (InterruptedException e) {
+                // The import was abandoned
+            }
+        }
+
+        // Returns the batch still being filled
+        private List<Product> parseChunk(long chunk, FeedParser parser, ProductRow row, List<Product> batch)
+                throws IOException, InterruptedException {
+            long from = chunk * chunkSize;
+            long to = Math.min(from + chunkSize, size);
+            // One byte before the chunk shows whether it starts on a line boundary
+            long mapFrom = Math.max(from - 1, 0);
+            long mapTo = Math.min(to + MAX_LINE_LENGTH, size);
+            MappedByteBuffer feed = channel.map(FileChannel.MapMode.READ_ONLY, mapFrom, mapTo - mapFrom);
+            int end = feed.limit();
+            int chunkEnd = (int) (to - mapFrom);
+            int lineStart = (int) (from - mapFrom);
+            if (from > 0 && feed.get(0) != '\n') {
+                // The line in progress belongs to the previous chunk
+                while (lineStart < end && feed.get(lineStart) != '\n') {
+                    lineStart++;
+                }
+                lineStart++;
+            }
+            while (lineStart < chunkEnd) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && feed.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                if (lineEnd == end && mapTo < size) {
+                    throw new IOException("Line at byte " + (mapFrom + lineStart) + " is longer than " + MAX_LINE_LENGTH + " bytes");
+                }
+                int contentEnd = lineEnd > lineStart && feed.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                boolean header = from == 0 && lineStart == 0 && parser.isHeader(feed, lineStart, contentEnd);
+                if (contentEnd > lineStart && !header) {
+                    row.reset();
+                    try {
+                        parser.parse(feed, lineStart, contentEnd, row);
+                        batch.add(row.toProduct());
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                        listener.rejected(mapFrom + lineStart, e.getMessage());
+                    }
+                    if (batch.size() == batchSize) {
+                        batches.put(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            bytesParsed.addAndGet(to - from);
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.eshop.importer;
+
+import java.nio.ByteBuffer;
+
+final class CsvFeedParser extends FeedParser {
+    private static final byte[] HEADER_START = {'t', 'y', 'p', 'e', ','};
+
+    @Override
+    boolean isHeader(ByteBuffer feed, int start, int end) {
+        if (end - start < HEADER_START.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER_START.length; i++) {
+            if (feed.get(start + i) != HEADER_START[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    void parse(ByteBuffer feed, int start, int end, ProductRow row) {
+        int i = start;
+        for (int column = 0; ; column++) {
+            ProductRow.Field field = ProductRow.Field.at(column);
+            if (i < end && feed.get(i) == '"') {
+                i = quoted(feed, i + 1, end);
+                if (i < end && feed.get(i) != ',') {
+                    throw new IllegalArgumentException("Text after the closing quote of " + field);
+                }
+                row.set(field, scratchString());
+            } else {
+                int fieldEnd = i;
+                while (fieldEnd < end && feed.get(fieldEnd) != ',') {
+                    fieldEnd++;
+                }
+                row.set(field, feed, i, fieldEnd);
+                i = fieldEnd;
+            }
+            if (i >= end) {
+                return;
+            }
+            i++; // The comma; a trailing one still yields an empty last field
+        }
+    }
+
+    // Collects a quoted value into the scratch buffer and returns the position after its closing quote
+    private int quoted(ByteBuffer feed, int i, int end) {
+        clearScratch();
+        while (i < end) {
+            byte b = feed.get(i++);
+            if (b != '"') {
+                appendScratch(b);
+            } else if (i < end && feed.get(i) == '"') {
+                appendScratch(b);
+                i++;
+            } else {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated quoted field");
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.eshop.importer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Product feed layouts. Both carry the same fields: type ({@code physical} or {@code digital}), id (optional;
+ * a new one is generated when blank), name, description, price, weight, shipping_cost and download_url.
+ * One product per line; a line may not be longer than 1 MiB.
+ */
+public enum FeedFormat {
+    // Fields in the order above, comma-separated; quoted fields may contain commas and "" but not line breaks.
+    // A first line starting with "type," is taken as a header and skipped.
+    CSV,
+    // One flat JSON object per line, keyed by the field names above; unknown keys are ignored
+    NDJSON;
+
+    // By file extension: .csv, or .ndjson / .jsonl
+    public static FeedFormat of(Path feed) {
+        String name = feed.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the feed format of " + feed.getFileName());
+    }
+
+    FeedParser newParser() {
+        return this == CSV ? new CsvFeedParser() : new NdjsonFeedParser();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.eshop.importer;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Parses one feed line at a time straight from the mapped file; one instance per parsing thread
+abstract class FeedParser {
+    // Longest run of digits that always fits in a long
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+
+    // Fills row from the line between start (inclusive) and end (exclusive), without the line break
+    abstract void parse(ByteBuffer feed, int start, int end, ProductRow row);
+
+    boolean isHeader(ByteBuffer feed, int start, int end) {
+        return false;
+    }
+
+    static String decode(ByteBuffer feed, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        feed.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Plain decimals of up to 18 digits go straight to an unscaled long; anything else takes the BigDecimal parser
+    static BigDecimal parseDecimal(ByteBuffer feed, int start, int end) {
+        int i = start;
+        boolean negative = feed.get(i) == '-';
+        if (negative || feed.get(i) == '+') {
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = feed.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            if (b < '0' || b > '9' || digits == MAX_FAST_DIGITS) {
+                return new BigDecimal(decode(feed, start, end));
+            }
+            unscaled = unscaled * 10 + (b - '0');
+            digits++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a number: " + decode(feed, start, end));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    void clearScratch() {
+        scratchLength = 0;
+    }
+
+    void appendScratch(byte b) {
+        if (scratchLength == scratch.length) {
+            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        }
+        scratch[scratchLength++] = b;
+    }
+
+    String scratchString() {
+        return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+    }
+}
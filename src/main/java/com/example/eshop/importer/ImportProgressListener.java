@@ -0,0 +1,12 @@
+package com.example.eshop.importer;
+
+public interface ImportProgressListener {
+    ImportProgressListener NONE = (imported, rejected, bytesParsed, totalBytes) -> { };
+
+    // Called on the importing thread after each batch is added to the catalog
+    void progress(long imported, long rejected, long bytesParsed, long totalBytes);
+
+    // Called on a parser thread, possibly concurrently, for each line that could not be turned into a product
+    default void rejected(long offset, String reason) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.eshop.importer;
+
+import java.time.Duration;
+
+public class ImportResult {
+    private final long imported;
+    private final long rejected;
+    private final long bytes;
+    private final Duration elapsed;
+
+    ImportResult(long imported, long rejected, long bytes, Duration elapsed) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.bytes = bytes;
+        this.elapsed = elapsed;
+    }
+
+    // Products added to the catalog; products it already held are not counted
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+}
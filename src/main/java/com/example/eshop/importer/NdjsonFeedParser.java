@@ -0,0 +1,165 @@
+package com.example.eshop.importer;
+
+import java.nio.ByteBuffer;
+
+// Flat objects only: string, number, boolean and null values; nested objects and arrays are rejected
+final class NdjsonFeedParser extends FeedParser {
+    private int lineStart;
+    private int position;
+
+    @Override
+    void parse(ByteBuffer feed, int start, int end, ProductRow row) {
+        lineStart = start;
+        position = start;
+        expect(feed, end, '{');
+        if (peek(feed, end) == '}') {
+            position++;
+        } else {
+            do {
+                String key = string(feed, end);
+                expect(feed, end, ':');
+                value(feed, end, ProductRow.Field.byKey(key), row);
+            } while (next(feed, end, ',', '}') == ',');
+        }
+        if (peek(feed, end) != -1) {
+            throw new IllegalArgumentException("Text after the closing brace");
+        }
+    }
+
+    private void value(ByteBuffer feed, int end, ProductRow.Field field, ProductRow row) {
+        int c = peek(feed, end);
+        if (c == '"') {
+            String value = string(feed, end);
+            if (field != null) {
+                row.set(field, value);
+            }
+        } else if (c == 'n' || c == 't' || c == 'f') {
+            int literalStart = position;
+            while (position < end && Character.isLetter(feed.get(position))) {
+                position++;
+            }
+            String literal = decode(feed, literalStart, position);
+            if (!literal.equals("null") && !literal.equals("true") && !literal.equals("false")) {
+                throw new IllegalArgumentException("Unknown literal " + literal);
+            }
+            if (field != null && !literal.equals("null")) {
+                throw new IllegalArgumentException(field + " cannot be a boolean");
+            }
+        } else if (c == '-' || c >= '0' && c <= '9') {
+            int numberStart = position;
+            while (position < end && isNumberByte(feed.get(position))) {
+                position++;
+            }
+            if (field != null) {
+                row.set(field, feed, numberStart, position);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value at column " + (position - lineStart));
+        }
+    }
+
+    private String string(ByteBuffer feed, int end) {
+        expect(feed, end, '"');
+        clearScratch();
+        while (position < end) {
+            byte b = feed.get(position++);
+            if (b == '"') {
+                return scratchString();
+            }
+            if (b != '\\') {
+                appendScratch(b);
+                continue;
+            }
+            if (position >= end) {
+                break;
+            }
+            byte escaped = feed.get(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> appendScratch(escaped);
+                case 'b' -> appendScratch((byte) '\b');
+                case 'f' -> appendScratch((byte) '\f');
+                case 'n' -> appendScratch((byte) '\n');
+                case 'r' -> appendScratch((byte) '\r');
+                case 't' -> appendScratch((byte) '\t');
+                case 'u' -> unicodeEscape(feed, end);
+                default -> throw new IllegalArgumentException("Unknown escape \\" + (char) escaped);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    // Called after "\\u"; a surrogate pair arrives as two escapes
+    private void unicodeEscape(ByteBuffer feed, int end) {
+        int codePoint = hex4(feed, end);
+        if (Character.isHighSurrogate((char) codePoint) && position + 1 < end
+                && feed.get(position) == '\\' && feed.get(position + 1) == 'u') {
+            position += 2;
+            int low = hex4(feed, end);
+            codePoint = Character.isLowSurrogate((char) low) ? Character.toCodePoint((char) codePoint, (char) low) : '?';
+        } else if (Character.isSurrogate((char) codePoint)) {
+            codePoint = '?';
+        }
+        if (codePoint < 0x80) {
+            appendScratch((byte) codePoint);
+        } else if (codePoint < 0x800) {
+            appendScratch((byte) (0xC0 | codePoint >> 6));
+            appendScratch((byte) (0x80 | codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            appendScratch((byte) (0xE0 | codePoint >> 12));
+            appendScratch((byte) (0x80 | codePoint >> 6 & 0x3F));
+            appendScratch((byte) (0x80 | codePoint & 0x3F));
+        } else {
+            appendScratch((byte) (0xF0 | codePoint >> 18));
+            appendScratch((byte) (0x80 | codePoint >> 12 & 0x3F));
+            appendScratch((byte) (0x80 | codePoint >> 6 & 0x3F));
+            appendScratch((byte) (0x80 | codePoint & 0x3F));
+        }
+    }
+
+    private int hex4(ByteBuffer feed, int end) {
+        if (position + 4 > end) {
+            throw new IllegalArgumentException("Truncated \\u escape");
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(feed.get(position++), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Malformed \\u escape");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    // Skips whitespace and returns the next byte without consuming it, or -1 at the end of the line
+    private int peek(ByteBuffer feed, int end) {
+        while (position < end) {
+            byte b = feed.get(position);
+            if (b != ' ' && b != '\t') {
+                return b;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    private void expect(ByteBuffer feed, int end, char expected) {
+        if (peek(feed, end) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at column " + (position - lineStart));
+        }
+        position++;
+    }
+
+    private int next(ByteBuffer feed, int end, char either, char or) {
+        int c = peek(feed, end);
+        if (c != either && c != or) {
+            throw new IllegalArgumentException("Expected '" + either + "' or '" + or + "' at column " + (position - lineStart));
+        }
+        position++;
+        return c;
+    }
+
+    private static boolean isNumberByte(byte b) {
+        return b >= '0' && b <= '9' || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+}
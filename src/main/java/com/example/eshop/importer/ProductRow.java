@@ -0,0 +1,105 @@
+package com.example.eshop.importer;
+
+import com.example.eshop.id.IdGenerators;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+// Field values of the feed line being parsed, reused from line to line by one parser
+final class ProductRow {
+    enum Field {
+        TYPE("type"), ID("id"), NAME("name"), DESCRIPTION("description"), PRICE("price"), WEIGHT("weight"),
+        SHIPPING_COST("shipping_cost"), DOWNLOAD_URL("download_url");
+
+        private static final Field[] VALUES = values();
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        static Field at(int column) {
+            if (column >= VALUES.length) {
+                throw new IllegalArgumentException("More than " + VALUES.length + " fields");
+            }
+            return VALUES[column];
+        }
+
+        // null for keys this importer doesn't know
+        static Field byKey(String key) {
+            for (Field field : VALUES) {
+                if (field.key.equals(key)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    private String type;
+    private UUID id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private double weight;
+    private BigDecimal shippingCost;
+    private String downloadUrl;
+
+    void reset() {
+        type = null;
+        id = null;
+        name = null;
+        description = null;
+        price = null;
+        weight = 0;
+        shippingCost = null;
+        downloadUrl = null;
+    }
+
+    void set(Field field, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        switch (field) {
+            case TYPE -> type = value;
+            case ID -> id = UUID.fromString(value);
+            case NAME -> name = value;
+            case DESCRIPTION -> description = value;
+            case PRICE -> price = new BigDecimal(value);
+            case WEIGHT -> weight = Double.parseDouble(value);
+            case SHIPPING_COST -> shippingCost = new BigDecimal(value);
+            case DOWNLOAD_URL -> downloadUrl = value;
+        }
+    }
+
+    // An unquoted value, still in the feed's bytes; decimals are parsed without building a string first
+    void set(Field field, ByteBuffer feed, int start, int end) {
+        if (start == end) {
+            return;
+        }
+        switch (field) {
+            case PRICE -> price = FeedParser.parseDecimal(feed, start, end);
+            case SHIPPING_COST -> shippingCost = FeedParser.parseDecimal(feed, start, end);
+            default -> set(field, FeedParser.decode(feed, start, end));
+        }
+    }
+
+    Product toProduct() {
+        if (type == null) {
+            throw new IllegalArgumentException("Missing type");
+        }
+        if (price == null) {
+            throw new IllegalArgumentException("Missing price");
+        }
+        UUID productId = id != null ? id : IdGenerators.nextId();
+        return switch (type) {
+            case "physical" -> new PhysicalProduct(productId, name, description, price, weight, shippingCost);
+            case "digital" -> new DigitalProduct(productId, name, description, price, downloadUrl);
+            default -> throw new IllegalArgumentException("Unknown product type " + type);
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.eshop.inventory;
+
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.order.OrderStatusListener;
+import com.example.eshop.product.Product;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks available and reserved units per product. Products that were never stocked are not tracked and
+ * can be ordered without limit. Reserving a set of items is all-or-nothing: each product is reserved on its
+ * own and earlier ones are given back if a later one runs short, so no lock is ever held across products
+ * and concurrent multi-item checkouts cannot deadlock.
+ * Orders reserved through {@link #reserve(Order)} remember exactly which units they took, and as an
+ * {@link OrderStatusListener} the inventory releases those units when the order is cancelled and drops them
+ * from the reserved count once it ships, whatever has been stocked since.
+ */
+public class Inventory implements OrderStatusListener {
+    private static final int STRIPES = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), 16);
+
+    private final Map<UUID, Stock> stock = new ConcurrentHashMap<>();
+    // Units each open order took, keyed by order id
+    private final Map<UUID, Map<Stock, Long>> reservations = new ConcurrentHashMap<>();
+
+    // Adds units to a product's stock, starting to track it if it wasn't already
+    public void addStock(Product product, long units) {
+        if (units <= 0) {
+            throw new IllegalArgumentException("Units must be greater than zero");
+        }
+        stock.computeIfAbsent(product.getId(), id -> new Stock()).add(units);
+    }
+
+    public boolean isTracked(Product product) {
+        return stock.containsKey(product.getId());
+    }
+
+    // Units that can still be reserved, or Long.MAX_VALUE for untracked products
+    public long getAvailable(Product product) {
+        Stock entry = stock.get(product.getId());
+        return entry == null ? Long.MAX_VALUE : entry.available();
+    }
+
+    public long getReserved(Product product) {
+        Stock entry = stock.get(product.getId());
+        return entry == null ? 0 : entry.reserved.sum();
+    }
+
+    // Reserves every item or none of them
+    public boolean reserve(Collection<CartItem> items) {
+        return take(items) != null;
+    }
+
+    // Reserves an order's items and remembers them so its cancellation or shipping settles exactly those units
+    public boolean reserve(Order order) {
+        Map<Stock, Long> taken = take(order.getItems());
+        if (taken == null) {
+            return false;
+        }
+        reservations.put(order.getId(), taken);
+        return true;
+    }
+
+    // Returns reserved units to the available stock
+    public void release(Collection<CartItem> items) {
+        demand(items).forEach(Stock::giveBack);
+    }
+
+    // Reserved units have left the warehouse: they stop counting as reserved without becoming available again
+    public void commit(Collection<CartItem> items) {
+        demand(items).forEach((entry, units) -> entry.reserved.add(-units));
+    }
+
+    @Override
+    public void statusChanged(Order order, OrderStatus from, OrderStatus to) {
+        if (to != OrderStatus.CANCELLED && to != OrderStatus.SHIPPED) {
+            return;
+        }
+        Map<Stock, Long> taken = reservations.remove(order.getId());
+        if (taken == null) {
+            return;
+        }
+        if (to == OrderStatus.CANCELLED) {
+            taken.forEach(Stock::giveBack);
+        } else {
+            taken.forEach((entry, units) -> entry.reserved.add(-units));
+        }
+    }
+
+    // The units taken per product, or null with nothing taken if any product ran short
+    private Map<Stock, Long> take(Collection<CartItem> items) {
+        Map<Stock, Long> demand = demand(items);
+        List<Map.Entry<Stock, Long>> taken = new ArrayList<>(demand.size());
+        for (Map.Entry<Stock, Long> entry : demand.entrySet()) {
+            if (!entry.getKey().take(entry.getValue())) {
+                for (Map.Entry<Stock, Long> rollback : taken) {
+                    rollback.getKey().giveBack(rollback.getValue());
+                }
+                return null;
+            }
+            taken.add(entry);
+        }
+        return demand;
+    }
+
+    // Units per tracked product; a product listed on several lines is reserved in one step
+    private Map<Stock, Long> demand(Collection<CartItem> items) {
+        Map<Stock, Long> demand = new LinkedHashMap<>();
+        for (CartItem item : items) {
+            Stock entry = stock.get(item.getProduct().getId());
+            if (entry != null) {
+                demand.merge(entry, (long) item.getQuantity(), Long::sum);
+            }
+        }
+        return demand;
+    }
+
+    /**
+     * Available units split across padded stripes so checkouts on different threads mostly CAS different cache
+     * lines. A reservation first tries its thread's stripe alone; only when that stripe can't cover it does it
+     * take the product's lock and gather units from every stripe. Stripes never go negative, so stock is never
+     * oversold, and at most one gatherer holds partially collected units at a time.
+     */
+    private static final class Stock {
+        // Longs between stripes so each stripe sits on its own cache line
+        private static final int PADDING = 8;
+
+        private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * PADDING);
+        private final LongAdder reserved = new LongAdder();
+        private final ReentrantLock gatherLock = new ReentrantLock();
+
+        private void add(long units) {
+            long share = units / STRIPES;
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.getAndAdd(i * PADDING, i == 0 ? units - share * (STRIPES - 1) : share);
+            }
+        }
+
+        private long available() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += stripes.get(i * PADDING);
+            }
+            return sum;
+        }
+
+        private boolean take(long units) {
+            if (takeFrom(home(), units) || gather(units)) {
+                reserved.add(units);
+                return true;
+            }
+            return false;
+        }
+
+        private void giveBack(long units) {
+            stripes.getAndAdd(home() * PADDING, units);
+            reserved.add(-units);
+        }
+
+        private boolean takeFrom(int stripe, long units) {
+            int index = stripe * PADDING;
+            long current;
+            do {
+                current = stripes.get(index);
+                if (current < units) {
+                    return false;
+                }
+            } while (!stripes.compareAndSet(index, current, current - units));
+            return true;
+        }
+
+        private boolean gather(long units) {
+            gatherLock.lock();
+            try {
+                long remaining = units;
+                int start = home();
+                for (int i = 0; i < STRIPES && remaining > 0; i++) {
+                    int index = ((start + i) & (STRIPES - 1)) * PADDING;
+                    long current;
+                    long part;
+                    do {
+                        current = stripes.get(index);
+                        part = Math.min(current, remaining);
+                    } while (part > 0 && !stripes.compareAndSet(index, current, current - part));
+                    remaining -= Math.max(part, 0);
+                }
+                if (remaining > 0) {
+                    stripes.getAndAdd(start * PADDING, units - remaining);
+                    return false;
+                }
+                return true;
+            } finally {
+                gatherLock.unlock();
+            }
+        }
+
+        private static int home() {
+            long id = Thread.currentThread().threadId();
+            return (int) (id ^ (id >>> 16)) & (STRIPES - 1);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.eshop.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.eshop.Checkout")
+@Label("Checkout")
+@Category({"E-Shop", "Checkout"})
+@Description("A synchronous order placement, from cart to settled payment")
+class CheckoutEvent extends Event {
+    @Label("Order Id")
+    String orderId;
+
+    @Label("Status")
+    String status;
+
+    @Label("Total (minor units)")
+    long total;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
@@ -0,0 +1,110 @@
+package com.example.eshop.metrics;
+
+import com.example.eshop.money.Money;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.order.OrderStatusListener;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the checkout path. Call sites take a start time with {@link #start()}
+ * and hand it back when the timed work is done. The {@link #DISABLED} instance skips even the clock read and
+ * every method returns at once, so instrumentation left in place costs a field read and a branch.
+ * While a JFR recording has them enabled, payments and checkouts are also emitted as JFR events.
+ */
+public class CheckoutMetrics implements OrderStatusListener {
+    public static final CheckoutMetrics DISABLED = new CheckoutMetrics(false);
+
+    private final boolean enabled;
+    private final LongAdder ordersPlaced = new LongAdder();
+    private final LongAdder ordersPaid = new LongAdder();
+    private final LongAdder ordersCancelled = new LongAdder();
+    private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+    private final LatencyHistogram paymentLatency = new LatencyHistogram();
+    private final LatencyHistogram paymentBatchLatency = new LatencyHistogram();
+    private final LatencyHistogram cartRepriceLatency = new LatencyHistogram();
+
+    public CheckoutMetrics() {
+        this(true);
+    }
+
+    private CheckoutMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void orderPlaced() {
+        if (enabled) {
+            ordersPlaced.increment();
+        }
+    }
+
+    // Counts orders as they become paid or cancelled, however that happens
+    @Override
+    public void statusChanged(Order order, OrderStatus from, OrderStatus to) {
+        if (!enabled) {
+            return;
+        }
+        if (to == OrderStatus.PAID) {
+            ordersPaid.increment();
+        } else if (to == OrderStatus.CANCELLED) {
+            ordersCancelled.increment();
+        }
+    }
+
+    public void checkoutCompleted(long start, Order order) {
+        if (!enabled) {
+            return;
+        }
+        long latency = System.nanoTime() - start;
+        checkoutLatency.record(latency);
+        CheckoutEvent event = new CheckoutEvent();
+        if (event.isEnabled()) {
+            event.orderId = order.getId().toString();
+            event.status = order.getStatus().name();
+            event.total = order.getTotal().getMinorUnits();
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    public void paymentCompleted(long start, Money amount, boolean approved) {
+        if (!enabled) {
+            return;
+        }
+        long latency = System.nanoTime() - start;
+        paymentLatency.record(latency);
+        PaymentEvent event = new PaymentEvent();
+        if (event.isEnabled()) {
+            event.amount = amount.getMinorUnits();
+            event.currency = amount.getCurrency().getCurrencyCode();
+            event.approved = approved;
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    public void paymentBatchCompleted(long start) {
+        if (enabled) {
+            paymentBatchLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public void cartRepriced(long start) {
+        if (enabled) {
+            cartRepriceLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(ordersPlaced.sum(), ordersPaid.sum(), ordersCancelled.sum(),
+                checkoutLatency.snapshot(), paymentLatency.snapshot(), paymentBatchLatency.snapshot(), cartRepriceLatency.snapshot());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.eshop.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative values (e.g. nanoseconds), in the style of HdrHistogram:
+ * each power-of-two range is split into 32 equal buckets, so any recorded value is known to within ~3%.
+ * Recording is a few bit operations and one atomic increment, and never allocates.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Group 0 holds 0..31 exactly; group g >= 1 holds [32 << (g - 1), 32 << g)
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.getAndIncrement(bucketOf(value));
+        sum.add(value);
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    // Counts recorded concurrently may or may not be included, but no bucket is read twice
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(copy, sum.sum(), max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int group = exponent - SUB_BUCKET_BITS + 1;
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return group * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that falls into the bucket
+    static long upperBoundOf(int bucket) {
+        int group = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        if (group == 0) {
+            return sub;
+        }
+        long next = (long) (SUB_BUCKETS + sub + 1) << (group - 1);
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.eshop.metrics;
+
+import java.util.Objects;
+
+// Process-wide checkout metrics; disabled until a CheckoutMetrics instance is installed
+public final class Metrics {
+    private static volatile CheckoutMetrics current = CheckoutMetrics.DISABLED;
+
+    private Metrics() {
+    }
+
+    public static CheckoutMetrics get() {
+        return current;
+    }
+
+    public static void set(CheckoutMetrics metrics) {
+        current = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    // Installs and returns a fresh enabled instance
+    public static CheckoutMetrics enable() {
+        CheckoutMetrics metrics = new CheckoutMetrics();
+        current = metrics;
+        return metrics;
+    }
+
+    public static void disable() {
+        current = CheckoutMetrics.DISABLED;
+    }
+}
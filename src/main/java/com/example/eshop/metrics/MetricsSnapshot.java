@@ -0,0 +1,55 @@
+package com.example.eshop.metrics;
+
+// Latencies are in nanoseconds
+public class MetricsSnapshot {
+    private final long ordersPlaced;
+    private final long ordersPaid;
+    private final long ordersCancelled;
+    private final HistogramSnapshot checkoutLatency;
+    private final HistogramSnapshot paymentLatency;
+    private final HistogramSnapshot paymentBatchLatency;
+    private final HistogramSnapshot cartRepriceLatency;
+
+    MetricsSnapshot(long ordersPlaced, long ordersPaid, long ordersCancelled, HistogramSnapshot checkoutLatency,
+                    HistogramSnapshot paymentLatency, HistogramSnapshot paymentBatchLatency, HistogramSnapshot cartRepriceLatency) {
+        this.ordersPlaced = ordersPlaced;
+        this.ordersPaid = ordersPaid;
+        this.ordersCancelled = ordersCancelled;
+        this.checkoutLatency = checkoutLatency;
+        this.paymentLatency = paymentLatency;
+        this.paymentBatchLatency = paymentBatchLatency;
+        this.cartRepriceLatency = cartRepriceLatency;
+    }
+
+    public long getOrdersPlaced() {
+        return ordersPlaced;
+    }
+
+    public long getOrdersPaid() {
+        return ordersPaid;
+    }
+
+    public long getOrdersCancelled() {
+        return ordersCancelled;
+    }
+
+    // Synchronous placeOrder calls, from cart to settled payment
+    public HistogramSnapshot getCheckoutLatency() {
+        return checkoutLatency;
+    }
+
+    // Single payment calls, synchronous or asynchronous
+    public HistogramSnapshot getPaymentLatency() {
+        return paymentLatency;
+    }
+
+    // One processPayments call per PaymentBatcher batch
+    public HistogramSnapshot getPaymentBatchLatency() {
+        return paymentBatchLatency;
+    }
+
+    // Carts bringing their total up to date after product prices changed
+    public HistogramSnapshot getCartRepriceLatency() {
+        return cartRepriceLatency;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.eshop.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.eshop.Payment")
+@Label("Payment")
+@Category({"E-Shop", "Checkout"})
+@Description("A payment authorization call")
+class PaymentEvent extends Event {
+    @Label("Amount (minor units)")
+    long amount;
+
+    @Label("Currency")
+    String currency;
+
+    @Label("Approved")
+    boolean approved;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
@@ -0,0 +1,128 @@
+package com.example.eshop.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Fixed-point amount held as a long count of the currency's minor units (cents for USD).
+ * Arithmetic is exact and throws {@link ArithmeticException} on overflow; rounding only happens
+ * when converting in from a {@link BigDecimal}, using {@link RoundingMode#HALF_EVEN} unless told otherwise.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0, currency);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency) {
+        return of(amount, currency, RoundingMode.HALF_EVEN);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency, RoundingMode rounding) {
+        BigDecimal scaled = amount.setScale(fractionDigits(currency), rounding);
+        return new Money(scaled.unscaledValue().longValueExact(), currency);
+    }
+
+    public static Money ofExact(BigDecimal amount) {
+        return ofExact(amount, DEFAULT_CURRENCY);
+    }
+
+    // For amounts that must not change on the way in, such as a charge: no rounding, and IllegalArgumentException
+    // for an amount finer than the minor unit or too large to count in minor units
+    public static Money ofExact(BigDecimal amount, Currency currency) {
+        try {
+            return of(amount, currency, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " is not a whole number of "
+                    + currency + " minor units that fits in a long", e);
+        }
+    }
+
+    public static int fractionDigits(Currency currency) {
+        // Pseudo-currencies such as XXX report -1; treat them as having no minor unit
+        return Math.max(currency.getDefaultFractionDigits(), 0);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minorUnits, currency);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+}
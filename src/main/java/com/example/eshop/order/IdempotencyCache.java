@@ -0,0 +1,160 @@
+package com.example.eshop.order;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers checkouts by idempotency key so a retried request gets the order of the first one instead of placing
+ * and paying for a second. The first request for a key runs the checkout; every request for the key, the first
+ * included, gets its own future following the checkout's outcome, so cancelling one only stops that request
+ * waiting. A placed order is remembered, whether paid or declined, until the time to live has passed since it
+ * settled; an order whose payment is still PENDING or PAYMENT_UNRESOLVED when its checkout completes counts as
+ * settled only once it leaves that status. A checkout that fails with an exception is forgotten at once, so it can
+ * be retried under the same key.
+ * At most {@code maxEntries} keys are kept: beyond that the oldest settled ones are dropped first. Checkouts and
+ * orders not settled yet are never dropped, so the bound can be exceeded while more than that many are open.
+ */
+public class IdempotencyCache {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entries in the order they were added, for expiry and eviction; entries already removed are skipped
+    private final Queue<Entry> age = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+
+    public IdempotencyCache(int maxEntries, Duration timeToLive) {
+        this(maxEntries, timeToLive, System::nanoTime);
+    }
+
+    public IdempotencyCache(int maxEntries, Duration timeToLive, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Entry limit must be greater than zero");
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.clock = clock;
+    }
+
+    // Runs the checkout unless one is remembered or running for this key
+    public CompletableFuture<Order> execute(String key, Supplier<CompletableFuture<Order>> checkout) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("Idempotency key cannot be blank");
+        }
+        Entry entry = new Entry(key);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired(clock.getAsLong())) {
+                return existing.outcome.copy();
+            }
+            forget(existing);
+        }
+        age.add(entry);
+        trim();
+
+        CompletableFuture<Order> placed;
+        try {
+            placed = checkout.get();
+        } catch (RuntimeException e) {
+            forget(entry);
+            entry.outcome.completeExceptionally(e);
+            throw e;
+        }
+        placed.whenComplete((order, failure) -> {
+            if (failure != null) {
+                // No order came out of it, so the key is free for a retry
+                forget(entry);
+                entry.outcome.completeExceptionally(failure);
+            } else {
+                expireOnceSettled(entry, order);
+                entry.outcome.complete(order);
+            }
+        });
+        return entry.outcome.copy();
+    }
+
+    // Keys currently remembered or running
+    public int size() {
+        return entries.size();
+    }
+
+    // Starts the time to live when the order settles, which for an order with its payment still open is later
+    private void expireOnceSettled(Entry entry, Order order) {
+        if (isSettled(order.getStatus())) {
+            entry.settled(clock.getAsLong() + timeToLiveNanos);
+            return;
+        }
+        order.addStatusListener((changed, from, to) -> {
+            if (isSettled(to)) {
+                entry.settled(clock.getAsLong() + timeToLiveNanos);
+            }
+        });
+        // The order may have settled before the listener was added
+        if (isSettled(order.getStatus())) {
+            entry.settled(clock.getAsLong() + timeToLiveNanos);
+        }
+    }
+
+    private static boolean isSettled(OrderStatus status) {
+        return status != OrderStatus.PENDING && status != OrderStatus.PAYMENT_UNRESOLVED;
+    }
+
+    private void forget(Entry entry) {
+        entry.removed = true;
+        entries.remove(entry.key, entry);
+    }
+
+    // Walks from the old end dropping expired entries, then the oldest settled ones while over the limit. Entries
+    // not settled yet are stepped over; the walk stops at the first settled entry it may keep, since entries
+    // behind it were added, and mostly settled, later
+    private void trim() {
+        long now = clock.getAsLong();
+        for (Iterator<Entry> it = age.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.removed || entry.isExpired(now) || (entry.isSettled() && entries.size() > maxEntries)) {
+                forget(entry);
+                it.remove();
+            } else if (entry.isSettled()) {
+                return;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final CompletableFuture<Order> outcome = new CompletableFuture<>();
+        // Set once the order settles; running checkouts and open payments never expire
+        private volatile long expiresAt = Long.MAX_VALUE;
+        private volatile boolean removed;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private void settled(long expiresAt) {
+            if (this.expiresAt == Long.MAX_VALUE) {
+                this.expiresAt = expiresAt;
+            }
+        }
+
+        private boolean isSettled() {
+            return expiresAt != Long.MAX_VALUE;
+        }
+
+        private boolean isExpired(long now) {
+            return isSettled() && now - expiresAt >= 0;
+        }
+    }
+}
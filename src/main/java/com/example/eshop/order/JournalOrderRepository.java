@@ -0,0 +1,345 @@
+package com.example.eshop.order;
+
+import com.example.eshop.codec.BinaryCodec;
+import com.example.eshop.product.Product;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, file-backed order store. Each save appends a CRC-checked binary record to a
+ * memory-mapped segment file; full segments are rolled over to a new file. {@link #save} returns once
+ * the record is forced to disk, and concurrent savers share one force (group commit): whoever takes the
+ * flush lock forces everything appended so far, and the others find their record already durable.
+ * On open, all segments are replayed to find the latest record of each order; replay stops at the
+ * first torn or corrupt record in a segment. Only an id-to-offset index stays on the heap, with a bounded
+ * cache of recently used orders in front of it; other orders are read back from their segment when asked for.
+ * An order referencing a product that no longer resolves is skipped and reported by {@link #getUnresolvedOrders()}
+ * rather than failing the whole journal.
+ */
+public class JournalOrderRepository implements OrderRepository, AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_CACHED_ORDERS = 10_000;
+
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    // Records are a version byte and a codec record
+    private static final byte RECORD_VERSION = 1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final BinaryCodec codec;
+    // Journal offset of each order's latest record
+    private final Map<UUID, Long> offsets = new ConcurrentHashMap<>();
+    private final Map<UUID, Order> cache;
+    private final Set<UUID> unresolved = ConcurrentHashMap.newKeySet();
+
+    private final Object appendLock = new Object();
+    private final Object flushLock = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    // Journal offsets are segmentIndex * segmentSize + position within the segment
+    private long appended;
+    private final AtomicLong durable = new AtomicLong();
+    private boolean closed;
+
+    /**
+     * @param products resolves the product ids recorded in the journal back to products during replay
+     */
+    public JournalOrderRepository(Path directory, Function<UUID, Product> products) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, products);
+    }
+
+    public JournalOrderRepository(Path directory, int segmentSize, Function<UUID, Product> products) throws IOException {
+        this(directory, segmentSize, products, DEFAULT_CACHED_ORDERS);
+    }
+
+    /**
+     * @param cachedOrders most orders kept decoded on the heap; the least recently used is dropped beyond that
+     */
+    public JournalOrderRepository(Path directory, int segmentSize, Function<UUID, Product> products, int cachedOrders) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Segment size must be at least 1 KiB");
+        }
+        if (cachedOrders <= 0) {
+            throw new IllegalArgumentException("Cached order count must be greater than zero");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.codec = new BinaryCodec(products);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Order> eldest) {
+                return size() > cachedOrders;
+            }
+        };
+        Files.createDirectories(directory);
+        replay();
+    }
+
+    @Override
+    public void save(Order order) {
+        ByteBuffer record = encode(order);
+        int length = record.remaining();
+        if (length + HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Order " + order.getId() + " does not fit in a journal segment");
+        }
+        long start;
+        long end;
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (segment.remaining() < length + HEADER_SIZE) {
+                roll();
+            }
+            int position = segment.position();
+            CRC32C crc = new CRC32C();
+            crc.update(record.duplicate());
+            // Payload and checksum first, length last: a non-zero length marks the record as complete
+            segment.position(position + HEADER_SIZE);
+            segment.put(record);
+            segment.putInt(position + Integer.BYTES, (int) crc.getValue());
+            segment.putInt(position, length);
+            start = segmentIndex * segmentSize + position;
+            appended = segmentIndex * segmentSize + segment.position();
+            end = appended;
+        }
+        awaitDurable(end);
+        synchronized (cache) {
+            cache.put(order.getId(), order);
+        }
+        // Concurrent saves of one order may finish out of order; the later record wins
+        offsets.merge(order.getId(), start, Math::max);
+        unresolved.remove(order.getId());
+    }
+
+    @Override
+    public Optional<Order> findById(UUID id) {
+        Order order;
+        synchronized (cache) {
+            order = cache.get(id);
+        }
+        if (order != null) {
+            return Optional.of(order);
+        }
+        Long offset = offsets.get(id);
+        if (offset == null) {
+            return Optional.empty();
+        }
+        try {
+            order = decode(read(offset));
+        } catch (IllegalStateException e) {
+            // A product it references was removed since the journal was opened
+            offsets.remove(id, offset);
+            unresolved.add(id);
+            return Optional.empty();
+        }
+        synchronized (cache) {
+            Order cached = cache.putIfAbsent(id, order);
+            return Optional.of(cached != null ? cached : order);
+        }
+    }
+
+    // Reads orders back as it is iterated, so a large journal isn't pulled onto the heap all at once. size() counts
+    // the orders indexed without reading them, so until an order whose product was removed after the journal was
+    // opened has been found unresolvable by iterating or by findById, size() still counts it and iteration skips it
+    @Override
+    public Collection<Order> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Order> iterator() {
+                return offsets.keySet().stream().map(JournalOrderRepository.this::findById)
+                        .flatMap(Optional::stream).iterator();
+            }
+
+            @Override
+            public int size() {
+                return offsets.size();
+            }
+        };
+    }
+
+    // Ids of orders left out because a product they reference could not be resolved
+    public Set<UUID> getUnresolvedOrders() {
+        return Collections.unmodifiableSet(unresolved);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment.force();
+            channel.close();
+        }
+    }
+
+    private void awaitDurable(long offset) {
+        if (durable.get() >= offset) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (durable.get() >= offset) {
+                return; // Someone else's force already covered this record
+            }
+            MappedByteBuffer current;
+            long upTo;
+            synchronized (appendLock) {
+                current = segment;
+                upTo = appended;
+            }
+            current.force();
+            durable.accumulateAndGet(upTo, Math::max);
+        }
+    }
+
+    // Called with appendLock held
+    private void roll() {
+        try {
+            segment.force();
+            durable.accumulateAndGet(appended, Math::max);
+            channel.close();
+            openSegment(segmentIndex + 1, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment(long index, int position) throws IOException {
+        channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.position(position);
+        segmentIndex = index;
+        appended = index * segmentSize + position;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", index) + SEGMENT_SUFFIX);
+    }
+
+    private void replay() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+        long lastIndex = 0;
+        int lastPosition = 0;
+        for (Path file : segments) {
+            String name = file.getFileName().toString();
+            long index = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(readChannel.size(), segmentSize));
+                lastIndex = index;
+                lastPosition = replaySegment(index, buffer);
+            }
+        }
+        openSegment(lastIndex, lastPosition);
+        durable.set(appended);
+    }
+
+    // Returns the position just past the last valid record
+    private int replaySegment(long index, ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            int checksum = buffer.getInt(start + Integer.BYTES);
+            if (length <= 0 || length > buffer.limit() - start - HEADER_SIZE) {
+                return start;
+            }
+            ByteBuffer payload = buffer.slice(start + HEADER_SIZE, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            UUID id = recordId(payload);
+            try {
+                Order order = decode(payload);
+                synchronized (cache) {
+                    cache.put(id, order);
+                }
+                offsets.put(id, index * segmentSize + start);
+                unresolved.remove(id);
+            } catch (IllegalStateException e) {
+                // Its latest state can't be restored, so an earlier record of it must not stand in
+                synchronized (cache) {
+                    cache.remove(id);
+                }
+                offsets.remove(id);
+                unresolved.add(id);
+            }
+            buffer.position(start + HEADER_SIZE + length);
+        }
+        return buffer.position();
+    }
+
+    // Payload of the record at the given journal offset
+    private ByteBuffer read(long offset) {
+        int position = (int) (offset % segmentSize);
+        try (FileChannel readChannel = FileChannel.open(segmentPath(offset / segmentSize), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(readChannel, header, position);
+            ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+            readFully(readChannel, payload, position + HEADER_SIZE);
+            return payload.flip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Journal record at " + position + " is truncated");
+            }
+        }
+    }
+
+    private static UUID recordId(ByteBuffer payload) {
+        return BinaryCodec.orderId(payload.slice(1, payload.limit() - 1));
+    }
+
+    private ByteBuffer encode(Order order) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + BinaryCodec.maxOrderSize(order.getItems().size()));
+        buffer.put(RECORD_VERSION);
+        codec.writeOrder(buffer, order);
+        return buffer.flip();
+    }
+
+    private Order decode(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != RECORD_VERSION) {
+            throw new IllegalStateException("Unsupported journal record version " + version);
+        }
+        return codec.readOrder(buffer);
+    }
+}
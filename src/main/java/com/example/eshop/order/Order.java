@@ -1,27 +1,67 @@
 package com.example.eshop.order;
 
 import com.example.eshop.cart.CartItem;
-import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.ShoppingCart;
+import com.example.eshop.cart.CartSnapshot;
+import com.example.eshop.id.IdGenerators;
+import com.example.eshop.money.Money;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public class Order {
+    private static final System.Logger LOGGER = System.getLogger(Order.class.getName());
+    private static final VarHandle STATUS;
+    private static final VarHandle LISTENERS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATUS = lookup.findVarHandle(Order.class, "status", OrderStatus.class);
+            LISTENERS = lookup.findVarHandle(Order.class, "listeners", List.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final UUID id;
     private final List<CartItem> items;
+    private final Money total;
     private final BigDecimal totalAmount;
     private final LocalDateTime orderDate;
-    private OrderStatus status;
+    private volatile OrderStatus status;
+    // Immutable, replaced by CAS on registration so firing never locks
+    private volatile List<OrderStatusListener> listeners = List.of();
 
-    public Order(Cart cart) {
-        this.id = UUID.randomUUID();
-        this.items = List.copyOf(cart.getItems()); // Create immutable copy
-        this.totalAmount = cart.calculateTotal();
+    public Order(ShoppingCart cart) {
+        this(cart.snapshot());
+    }
+
+    // Takes over the snapshot's frozen lines and total without copying or repricing them
+    public Order(CartSnapshot snapshot) {
+        this.id = IdGenerators.nextId();
+        this.items = snapshot.getItems();
+        this.total = snapshot.getTotal();
+        this.totalAmount = total.toBigDecimal();
         this.orderDate = LocalDateTime.now();
         this.status = OrderStatus.PENDING;
     }
 
+    // Restores an order that was placed earlier, e.g. when replaying a journal
+    public Order(UUID id, List<CartItem> items, Money total, LocalDateTime orderDate, OrderStatus status) {
+        this.id = id;
+        this.items = CartSnapshot.of(items, total).getItems();
+        this.total = total;
+        this.totalAmount = total.toBigDecimal();
+        this.orderDate = orderDate;
+        this.status = status;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -30,6 +70,10 @@ public class Order {
         return items;
     }
 
+    public Money getTotal() {
+        return total;
+    }
+
     public BigDecimal getTotalAmount() {
         return totalAmount;
     }
@@ -42,7 +86,80 @@ public class Order {
         return status;
     }
 
+    // Moves to the given status from whatever the current one is, failing if the transition table forbids it
     public void setStatus(OrderStatus status) {
-        this.status = status;
+        while (true) {
+            OrderStatus current = this.status;
+            if (current == status) {
+                return;
+            }
+            requireTransition(current, status);
+            if (STATUS.compareAndSet(this, current, status)) {
+                fireStatusChanged(current, status);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Atomically moves from {@code from} to {@code to}. Returns false without side effects if another
+     * thread changed the status first, so competing workers (e.g. shipping vs. cancelling) can't both win.
+     *
+     * @throws IllegalStateException if the transition table does not allow {@code from -> to}
+     */
+    public boolean transition(OrderStatus from, OrderStatus to) {
+        requireTransition(from, to);
+        if (!STATUS.compareAndSet(this, from, to)) {
+            return false;
+        }
+        fireStatusChanged(from, to);
+        return true;
+    }
+
+    public void addStatusListener(OrderStatusListener listener) {
+        addStatusListeners(List.of(listener));
+    }
+
+    public void addStatusListeners(Collection<? extends OrderStatusListener> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        while (true) {
+            List<OrderStatusListener> current = listeners;
+            List<OrderStatusListener> updated = new ArrayList<>(current.size() + added.size());
+            updated.addAll(current);
+            updated.addAll(added);
+            if (LISTENERS.compareAndSet(this, current, List.copyOf(updated))) {
+                return;
+            }
+        }
+    }
+
+    public void removeStatusListener(OrderStatusListener listener) {
+        while (true) {
+            List<OrderStatusListener> current = listeners;
+            List<OrderStatusListener> updated = new ArrayList<>(current);
+            if (!updated.remove(listener) || LISTENERS.compareAndSet(this, current, List.copyOf(updated))) {
+                return;
+            }
+        }
+    }
+
+    private static void requireTransition(OrderStatus from, OrderStatus to) {
+        if (!from.canTransitionTo(to)) {
+            throw new IllegalStateException("Order cannot move from " + from + " to " + to);
+        }
+    }
+
+    private void fireStatusChanged(OrderStatus from, OrderStatus to) {
+        // The transition already happened, so a failing listener must not fail it for the caller: whoever changed
+        // the status still has to record it. Each failure is logged and the remaining listeners still run
+        for (OrderStatusListener listener : listeners) {
+            try {
+                listener.statusChanged(this, from, to);
+            } catch (RuntimeException e) {
+                LOGGER.log(System.Logger.Level.ERROR, "Status listener failed on order " + id + " moving from " + from + " to " + to, e);
+            }
+        }
     }
 }
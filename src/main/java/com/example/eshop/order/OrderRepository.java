@@ -0,0 +1,14 @@
+package com.example.eshop.order;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OrderRepository {
+    // Saving an order again records its current state; the latest save wins
+    void save(Order order);
+
+    Optional<Order> findById(UUID id);
+
+    Collection<Order> findAll();
+}
@@ -1,24 +1,135 @@
 package com.example.eshop.order;
 
 import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.ConcurrentCart;
+import com.example.eshop.cart.ShoppingCart;
+import com.example.eshop.inventory.Inventory;
+import com.example.eshop.metrics.CheckoutMetrics;
+import com.example.eshop.metrics.Metrics;
+import com.example.eshop.payment.PaymentOutcomeUnknownException;
 import com.example.eshop.payment.PaymentProcessor;
+import com.example.eshop.payment.PaymentResult;
+import com.example.eshop.payment.PaymentUnavailableException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public class OrderService {
+    private static final Duration DEFAULT_PAYMENT_TIMEOUT = Duration.ofSeconds(30);
+
     private final PaymentProcessor paymentProcessor;
+    private final Duration paymentTimeout;
+    private final Semaphore inFlightCheckouts;
+    // A fresh virtual thread per blocking payment call, so a slow gateway doesn't hold a platform thread
+    private final ThreadFactory checkoutThreads = Thread.ofVirtual().name("checkout-", 0).factory();
+    private final Executor checkoutExecutor = task -> checkoutThreads.newThread(task).start();
+    private volatile PaymentBatcher paymentBatcher;
+    private volatile OrderRepository orderRepository;
+    private volatile Inventory inventory;
+    private volatile IdempotencyCache idempotencyCache;
+    private final List<OrderStatusListener> statusListeners = new CopyOnWriteArrayList<>();
 
     public OrderService(PaymentProcessor paymentProcessor) {
+        this(paymentProcessor, DEFAULT_PAYMENT_TIMEOUT, Integer.MAX_VALUE);
+    }
+
+    public OrderService(PaymentProcessor paymentProcessor, Duration paymentTimeout, int maxInFlightCheckouts) {
+        if (paymentTimeout.isNegative() || paymentTimeout.isZero()) {
+            throw new IllegalArgumentException("Payment timeout must be positive");
+        }
+        if (maxInFlightCheckouts <= 0) {
+            throw new IllegalArgumentException("In-flight checkout limit must be greater than zero");
+        }
         this.paymentProcessor = paymentProcessor;
+        this.paymentTimeout = paymentTimeout;
+        this.inFlightCheckouts = new Semaphore(maxInFlightCheckouts);
+    }
+
+    public PaymentBatcher getPaymentBatcher() {
+        return paymentBatcher;
+    }
+
+    public void setPaymentBatcher(PaymentBatcher paymentBatcher) {
+        this.paymentBatcher = paymentBatcher;
+    }
+
+    public OrderRepository getOrderRepository() {
+        return orderRepository;
+    }
+
+    public void setOrderRepository(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    // With an inventory set, placing an order reserves its stock and fails if any item is short
+    public void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    public IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
+    }
+
+    // Needed by the checkouts that take an idempotency key
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    // Registered listeners are attached to every order this service places from now on
+    public void addStatusListener(OrderStatusListener listener) {
+        statusListeners.add(listener);
+    }
+
+    public void removeStatusListener(OrderStatusListener listener) {
+        statusListeners.remove(listener);
     }
 
-    public Order placeOrder(Cart cart) {
-        if (cart.getItems().isEmpty()) {
+    public Order placeOrder(ShoppingCart cart) {
+        if (cart.isEmpty()) {
             throw new IllegalStateException("Cannot place an order with an empty cart");
         }
 
-        Order order = new Order(cart);
+        CheckoutMetrics metrics = Metrics.get();
+        long started = metrics.start();
+        Order order = newOrder(cart);
 
-        if (paymentProcessor.processPayment(order.getTotalAmount())) {
+        boolean approved;
+        boolean unavailable = false;
+        boolean unknown = false;
+        long paymentStarted = metrics.start();
+        try {
+            approved = paymentProcessor.processPayment(order.getTotal());
+        } catch (PaymentUnavailableException e) {
+            approved = false;
+            unavailable = true;
+        } catch (PaymentOutcomeUnknownException e) {
+            approved = false;
+            unknown = true;
+        } catch (RuntimeException e) {
+            metrics.paymentCompleted(paymentStarted, order.getTotal(), false);
+            order.setStatus(OrderStatus.CANCELLED); // Hands back any reserved stock
+            throw e;
+        }
+        metrics.paymentCompleted(paymentStarted, order.getTotal(), approved);
+        if (approved) {
             order.setStatus(OrderStatus.PAID);
+        } else if (unavailable) {
+            // The gateway is down or overloaded: the order keeps its stock until retryPayment settles it
+            order.setStatus(OrderStatus.PAYMENT_FAILED);
+        } else if (unknown) {
+            // The charge may have gone through, so it must not be retried: reconcilePayment settles it
+            order.setStatus(OrderStatus.PAYMENT_UNRESOLVED);
         } else {
             // Handle payment failure case (e.g., throw exception or set specific status)
             // For simplicity, we just leave it as PENDING or could cancel it
@@ -26,6 +137,253 @@ public class OrderService {
         }
 
         cart.clear(); // Empty the cart after order is placed
+        record(order);
+        metrics.checkoutCompleted(started, order);
+        return order;
+    }
+
+    /**
+     * Places the order at most once per idempotency key. A retry gets the order of the first request, even though
+     * that request emptied the cart, and a retry arriving while the first is still being paid waits for it.
+     */
+    public Order placeOrder(ShoppingCart cart, String idempotencyKey) {
+        try {
+            return requireIdempotencyCache()
+                    .execute(idempotencyKey, () -> CompletableFuture.completedFuture(placeOrder(cart)))
+                    .join();
+        } catch (CompletionException e) {
+            // A retry that waited on the first request fails the way it did
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Charges an order left PAYMENT_FAILED again. It ends up PAID, CANCELLED if the payment is declined or throws,
+     * stays PAYMENT_FAILED while the gateway is still unavailable, or becomes PAYMENT_UNRESOLVED if the gateway
+     * didn't answer, since the charge may have gone through. Orders whose payment is unresolved are refused: charging
+     * them again could charge twice, so {@link #reconcilePayment} settles them instead.
+     */
+    public Order retryPayment(Order order) {
+        if (order.getStatus() != OrderStatus.PAYMENT_FAILED) {
+            throw new IllegalStateException("Only orders whose payment failed can be retried");
+        }
+        CheckoutMetrics metrics = Metrics.get();
+        long paymentStarted = metrics.start();
+        boolean approved;
+        try {
+            approved = paymentProcessor.processPayment(order.getTotal());
+        } catch (PaymentUnavailableException e) {
+            metrics.paymentCompleted(paymentStarted, order.getTotal(), false);
+            return order;
+        } catch (PaymentOutcomeUnknownException e) {
+            metrics.paymentCompleted(paymentStarted, order.getTotal(), false);
+            if (order.transition(OrderStatus.PAYMENT_FAILED, OrderStatus.PAYMENT_UNRESOLVED)) {
+                record(order);
+            }
+            return order;
+        } catch (RuntimeException e) {
+            metrics.paymentCompleted(paymentStarted, order.getTotal(), false);
+            if (order.transition(OrderStatus.PAYMENT_FAILED, OrderStatus.CANCELLED)) {
+                record(order);
+            }
+            throw e;
+        }
+        metrics.paymentCompleted(paymentStarted, order.getTotal(), approved);
+        // Losing the transition means the order was cancelled meanwhile
+        if (order.transition(OrderStatus.PAYMENT_FAILED, approved ? OrderStatus.PAID : OrderStatus.CANCELLED)) {
+            record(order);
+        }
+        return order;
+    }
+
+    public Order placeOrder(ConcurrentCart cart) {
+        // Check out a consistent copy so other devices can keep adding while payment runs
+        Cart snapshot = cart.snapshot();
+        Order order = placeOrder(snapshot);
+        cart.removeAll(order.getItems());
+        return order;
+    }
+
+    /**
+     * Places the order without blocking the caller. The returned future completes with the order once
+     * payment settles: PAID if approved, CANCELLED if declined, PAYMENT_FAILED if the gateway was unavailable,
+     * PAYMENT_UNRESOLVED if the gateway reported the charge's outcome unknown. If the payment timeout passes
+     * first, it completes with the order PAYMENT_UNRESOLVED, since the charge may still go through; cancelling
+     * the future does the same. The processor's eventual answer then settles the order, unless it gives up on
+     * the gateway itself, as {@link com.example.eshop.payment.ResilientPaymentProcessor} does at its call
+     * timeout: the late answer is then lost and the order stays PAYMENT_UNRESOLVED until {@link #reconcilePayment}.
+     * A checkout counts against the in-flight limit until its gateway call returns, not just until its future
+     * completes, and fails immediately with {@link RejectedExecutionException} if the limit is reached.
+     */
+    public CompletableFuture<Order> placeOrderAsync(ShoppingCart cart) {
+        return checkoutAsync(cart, true);
+    }
+
+    // Without unresolvedOnCancel, cancelling the returned future only stops that caller waiting
+    private CompletableFuture<Order> checkoutAsync(ShoppingCart cart, boolean unresolvedOnCancel) {
+        if (cart.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Cannot place an order with an empty cart"));
+        }
+        if (!inFlightCheckouts.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many checkouts in flight"));
+        }
+
+        Order order;
+        try {
+            order = newOrder(cart);
+        } catch (RuntimeException e) {
+            inFlightCheckouts.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        CheckoutMetrics metrics = Metrics.get();
+        long paymentStarted = metrics.start();
+        CompletableFuture<PaymentResult> payment;
+        try {
+            payment = paymentProcessor.processPaymentAsync(order.getTotal(), checkoutExecutor);
+        } catch (RuntimeException e) {
+            inFlightCheckouts.release();
+            order.setStatus(OrderStatus.CANCELLED); // Hands back any reserved stock
+            return CompletableFuture.failedFuture(e);
+        }
+        cart.clear(); // Empty the cart after order is placed
+
+        // The permit is returned before the order is settled, so a caller that waited can check out again at once
+        CompletableFuture<Order> settled = payment.handle((result, failure) -> {
+            inFlightCheckouts.release();
+            metrics.paymentCompleted(paymentStarted, order.getTotal(), failure == null && result.isApproved());
+            if (failure == null) {
+                return resolve(order, result.isApproved() ? OrderStatus.PAID : OrderStatus.CANCELLED);
+            }
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (cause instanceof PaymentUnavailableException) {
+                return resolve(order, OrderStatus.PAYMENT_FAILED);
+            }
+            if (cause instanceof PaymentOutcomeUnknownException) {
+                return unresolved(order); // Only reconciliation can tell whether it was charged
+            }
+            resolve(order, OrderStatus.CANCELLED); // Hands back any reserved stock
+            throw failure instanceof CompletionException completion ? completion : new CompletionException(cause);
+        });
+        // Waiting is bounded, the gateway call isn't: a CompletableFuture can't interrupt the thread making it
+        CompletableFuture<Order> placed = settled.copy()
+                .completeOnTimeout(order, paymentTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                .thenApply(this::unresolved);
+        if (unresolvedOnCancel) {
+            placed.whenComplete((result, failure) -> {
+                if (placed.isCancelled()) {
+                    unresolved(order);
+                }
+            });
+        }
+        return placed;
+    }
+
+    /**
+     * Settles a PAYMENT_UNRESOLVED order once the gateway's records show whether the charge went through:
+     * PAID if it did, PAYMENT_FAILED if it didn't, so that {@link #retryPayment} can charge it again.
+     */
+    public Order reconcilePayment(Order order, boolean charged) {
+        if (order.getStatus() != OrderStatus.PAYMENT_UNRESOLVED) {
+            throw new IllegalStateException("Only orders whose payment is unresolved can be reconciled");
+        }
+        if (order.transition(OrderStatus.PAYMENT_UNRESOLVED, charged ? OrderStatus.PAID : OrderStatus.PAYMENT_FAILED)) {
+            record(order);
+        }
+        return order;
+    }
+
+    /**
+     * Like placeOrder(ShoppingCart, String), without blocking. Cancelling a request's future only stops it waiting:
+     * the checkout goes on and keeps its key, so a retry gets the order rather than paying again.
+     */
+    public CompletableFuture<Order> placeOrderAsync(ShoppingCart cart, String idempotencyKey) {
+        return requireIdempotencyCache().execute(idempotencyKey, () -> checkoutAsync(cart, false));
+    }
+
+    // Queues the order's payment with the configured PaymentBatcher; the future completes once its batch is authorized
+    public CompletableFuture<Order> placeOrderBatched(ShoppingCart cart) {
+        PaymentBatcher batcher = paymentBatcher;
+        if (batcher == null) {
+            throw new IllegalStateException("No payment batcher configured");
+        }
+        if (cart.isEmpty()) {
+            throw new IllegalStateException("Cannot place an order with an empty cart");
+        }
+
+        Order order = newOrder(cart);
+        CompletableFuture<Order> placed = batcher.submit(order);
+        if (!placed.isCompletedExceptionally()) {
+            cart.clear(); // Empty the cart after order is placed
+        }
+        // A batch that failed as a whole settles its orders the way a single failed payment would
+        return placed.handle((settled, failure) -> {
+            if (failure == null) {
+                return record(settled);
+            }
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (cause instanceof PaymentUnavailableException) {
+                return settle(order, OrderStatus.PAYMENT_FAILED);
+            }
+            if (cause instanceof PaymentOutcomeUnknownException) {
+                return unresolved(order);
+            }
+            settle(order, OrderStatus.CANCELLED); // Never got paid, so its reserved stock goes back
+            throw failure instanceof CompletionException completion ? completion : new CompletionException(cause);
+        });
+    }
+
+    private IdempotencyCache requireIdempotencyCache() {
+        IdempotencyCache cache = idempotencyCache;
+        if (cache == null) {
+            throw new IllegalStateException("No idempotency cache configured");
+        }
+        return cache;
+    }
+
+    private Order newOrder(ShoppingCart cart) {
+        Order order = new Order(cart);
+        Inventory stock = inventory;
+        CheckoutMetrics metrics = Metrics.get();
+        if (stock != null) {
+            if (!stock.reserve(order)) {
+                throw new IllegalStateException("Not enough stock to place the order");
+            }
+            // Releases the reservation on cancellation and settles it on shipping
+            order.addStatusListener(stock);
+        }
+        if (metrics.isEnabled()) {
+            metrics.orderPlaced();
+            order.addStatusListener(metrics);
+        }
+        order.addStatusListeners(statusListeners);
+        return order;
+    }
+
+    private Order settle(Order order, OrderStatus outcome) {
+        if (order.transition(OrderStatus.PENDING, outcome)) {
+            record(order);
+        }
+        return order;
+    }
+
+    // Marks a checkout whose caller stopped waiting before the gateway answered; a no-op once the order settled
+    private Order unresolved(Order order) {
+        return settle(order, OrderStatus.PAYMENT_UNRESOLVED);
+    }
+
+    // Settles an order from the gateway's answer, whether or not its caller is still waiting
+    private Order resolve(Order order, OrderStatus outcome) {
+        if (order.transition(OrderStatus.PENDING, outcome) || order.transition(OrderStatus.PAYMENT_UNRESOLVED, outcome)) {
+            record(order);
+        }
+        return order;
+    }
+
+    private Order record(Order order) {
+        OrderRepository repository = orderRepository;
+        if (repository != null) {
+            repository.save(order);
+        }
         return order;
     }
 }
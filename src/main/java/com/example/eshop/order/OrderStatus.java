@@ -5,5 +5,29 @@ public enum OrderStatus {
     PAID,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED,
+    // The payment gateway was unavailable; the order keeps its stock until the payment is retried or it is cancelled.
+    // Ordinals are persisted, so new statuses go at the end
+    PAYMENT_FAILED,
+    // The charge was sent but no answer came in time, so it may or may not have gone through; the gateway's late
+    // answer or a reconciliation settles it
+    PAYMENT_UNRESOLVED;
+
+    // PENDING -> PAID -> SHIPPED -> DELIVERED, with cancellation allowed until the order ships
+    // and PENDING -> PAYMENT_FAILED -> PAID when a payment has to be retried, or PENDING or PAYMENT_FAILED ->
+    // PAYMENT_UNRESOLVED while the outcome of a charge is unknown
+    public boolean canTransitionTo(OrderStatus next) {
+        return switch (this) {
+            case PENDING -> next == PAID || next == CANCELLED || next == PAYMENT_FAILED || next == PAYMENT_UNRESOLVED;
+            case PAYMENT_UNRESOLVED -> next == PAID || next == CANCELLED || next == PAYMENT_FAILED;
+            case PAYMENT_FAILED -> next == PAID || next == CANCELLED || next == PAYMENT_UNRESOLVED;
+            case PAID -> next == SHIPPED || next == CANCELLED;
+            case SHIPPED -> next == DELIVERED;
+            case DELIVERED, CANCELLED -> false;
+        };
+    }
+
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
 }
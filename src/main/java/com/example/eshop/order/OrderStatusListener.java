@@ -0,0 +1,7 @@
+package com.example.eshop.order;
+
+@FunctionalInterface
+public interface OrderStatusListener {
+    // Called on the thread that won the transition, after the new status is visible; exceptions are logged, not rethrown
+    void statusChanged(Order order, OrderStatus from, OrderStatus to);
+}
@@ -0,0 +1,172 @@
+package com.example.eshop.order;
+
+import com.example.eshop.cart.CartItem;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory order repository with secondary indexes by status, order date and product. Every index is a
+ * skip list ordered by order date (then id), so range queries walk only the matching part of an index and
+ * all query results come back oldest first. Results are lazy streams over the live indexes: paginate with
+ * {@code skip}/{@code limit}, and only the orders actually consumed are visited.
+ * The status index follows status changes of saved orders without them having to be saved again.
+ */
+public class OrderStore implements OrderRepository {
+    private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final Map<UUID, Order> byId = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Key, Order> byDate = new ConcurrentSkipListMap<>();
+    private final Map<OrderStatus, ConcurrentNavigableMap<Key, Order>> byStatus = new EnumMap<>(OrderStatus.class);
+    private final Map<UUID, ConcurrentNavigableMap<Key, Order>> byProduct = new ConcurrentHashMap<>();
+    private final OrderStatusListener statusTracker = (order, from, to) -> reindexStatus(order);
+
+    public OrderStore() {
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    @Override
+    public void save(Order order) {
+        Key key = Key.of(order);
+        // Index updates for one id are serialized by compute, so a concurrent status change can't leave a stale entry
+        byId.compute(order.getId(), (id, previous) -> {
+            if (previous != order) {
+                if (previous != null) {
+                    previous.removeStatusListener(statusTracker);
+                    unindex(Key.of(previous), previous);
+                }
+                byDate.put(key, order);
+                for (CartItem item : order.getItems()) {
+                    byProduct.computeIfAbsent(item.getProduct().getId(), productId -> new ConcurrentSkipListMap<>()).put(key, order);
+                }
+                order.addStatusListener(statusTracker);
+            }
+            indexStatus(key, order);
+            return order;
+        });
+    }
+
+    @Override
+    public Optional<Order> findById(UUID id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    // All orders, oldest first
+    @Override
+    public Collection<Order> findAll() {
+        return Collections.unmodifiableCollection(byDate.values());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public Stream<Order> findByStatus(OrderStatus status) {
+        return byStatus.get(status).values().stream()
+                .filter(order -> order.getStatus() == status);
+    }
+
+    // Orders with the given status placed in [from, to)
+    public Stream<Order> findByStatus(OrderStatus status, LocalDateTime from, LocalDateTime to) {
+        return range(byStatus.get(status), from, to)
+                .filter(order -> order.getStatus() == status);
+    }
+
+    // Orders placed in [from, to)
+    public Stream<Order> findPlacedBetween(LocalDateTime from, LocalDateTime to) {
+        return range(byDate, from, to);
+    }
+
+    public Stream<Order> findByProduct(UUID productId) {
+        NavigableMap<Key, Order> orders = byProduct.get(productId);
+        return orders == null ? Stream.empty() : orders.values().stream();
+    }
+
+    // Orders containing the given product placed in [from, to)
+    public Stream<Order> findByProduct(UUID productId, LocalDateTime from, LocalDateTime to) {
+        ConcurrentNavigableMap<Key, Order> orders = byProduct.get(productId);
+        return orders == null ? Stream.empty() : range(orders, from, to);
+    }
+
+    private static Stream<Order> range(ConcurrentNavigableMap<Key, Order> index, LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Range start must not be after its end");
+        }
+        return index.subMap(new Key(from, LOWEST_ID), new Key(to, LOWEST_ID)).values().stream();
+    }
+
+    private void reindexStatus(Order order) {
+        byId.computeIfPresent(order.getId(), (id, current) -> {
+            if (current == order) {
+                indexStatus(Key.of(order), order);
+            }
+            return current;
+        });
+    }
+
+    // Called inside byId.compute for the order's id
+    private void indexStatus(Key key, Order order) {
+        OrderStatus status = order.getStatus();
+        for (Map.Entry<OrderStatus, ConcurrentNavigableMap<Key, Order>> entry : byStatus.entrySet()) {
+            if (entry.getKey() == status) {
+                entry.getValue().put(key, order);
+            } else {
+                entry.getValue().remove(key);
+            }
+        }
+    }
+
+    private void unindex(Key key, Order order) {
+        byDate.remove(key);
+        for (ConcurrentNavigableMap<Key, Order> index : byStatus.values()) {
+            index.remove(key);
+        }
+        for (CartItem item : order.getItems()) {
+            ConcurrentNavigableMap<Key, Order> orders = byProduct.get(item.getProduct().getId());
+            if (orders != null) {
+                orders.remove(key);
+            }
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final LocalDateTime orderDate;
+        private final UUID id;
+
+        private Key(LocalDateTime orderDate, UUID id) {
+            this.orderDate = orderDate;
+            this.id = id;
+        }
+
+        private static Key of(Order order) {
+            return new Key(order.getOrderDate(), order.getId());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byDate = orderDate.compareTo(other.orderDate);
+            return byDate != 0 ? byDate : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && orderDate.equals(other.orderDate) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * orderDate.hashCode() + id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.eshop.order;
+
+import com.example.eshop.metrics.CheckoutMetrics;
+import com.example.eshop.metrics.Metrics;
+import com.example.eshop.payment.PaymentProcessor;
+import com.example.eshop.payment.PaymentRequest;
+import com.example.eshop.payment.PaymentResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects orders awaiting payment and authorizes them through one
+ * {@link PaymentProcessor#processPayments} call per batch. A batch is sent once it reaches
+ * {@code maxBatchSize} orders or {@code maxDelay} after its first order arrived, whichever comes first.
+ * Each order settles as its result says: PAID, CANCELLED if declined, PAYMENT_FAILED if the gateway was
+ * unavailable, or PAYMENT_UNRESOLVED if the charge's outcome is unknown.
+ */
+public class PaymentBatcher implements AutoCloseable {
+    private final PaymentProcessor paymentProcessor;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final ScheduledExecutorService timer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<Pending> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public PaymentBatcher(PaymentProcessor paymentProcessor, int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero");
+        }
+        if (maxDelay.isNegative() || maxDelay.isZero()) {
+            throw new IllegalArgumentException("Batch window must be positive");
+        }
+        this.paymentProcessor = paymentProcessor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("payment-batcher").daemon().factory());
+    }
+
+    public CompletableFuture<Order> submit(Order order) {
+        CompletableFuture<Order> result = new CompletableFuture<>();
+        List<Pending> full = null;
+        lock.lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Payment batcher is closed"));
+            }
+            pending.add(new Pending(order, result));
+            if (pending.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (pending.size() == 1) {
+                scheduledFlush = timer.schedule(this::flushInBackground, maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            // The submitter that filled the batch shouldn't be held up by the gateway
+            authorizeInBackground(full);
+        }
+        return result;
+    }
+
+    public void flush() {
+        List<Pending> batch;
+        lock.lock();
+        try {
+            batch = takeBatch();
+        } finally {
+            lock.unlock();
+        }
+        authorize(batch);
+    }
+
+    private void flushInBackground() {
+        List<Pending> batch;
+        lock.lock();
+        try {
+            batch = takeBatch();
+        } finally {
+            lock.unlock();
+        }
+        authorizeInBackground(batch);
+    }
+
+    private void authorizeInBackground(List<Pending> batch) {
+        if (!batch.isEmpty()) {
+            Thread.ofVirtual().name("payment-batch").start(() -> authorize(batch));
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        timer.shutdownNow();
+    }
+
+    private List<Pending> takeBatch() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void authorize(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PaymentRequest> requests = new ArrayList<>(batch.size());
+        for (Pending entry : batch) {
+            requests.add(new PaymentRequest(entry.order.getId(), entry.order.getTotal()));
+        }
+        CheckoutMetrics metrics = Metrics.get();
+        long started = metrics.start();
+        List<PaymentResult> results;
+        try {
+            results = paymentProcessor.processPayments(requests);
+            metrics.paymentBatchCompleted(started);
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " payment results but got " + results.size());
+            }
+        } catch (RuntimeException e) {
+            for (Pending entry : batch) {
+                entry.result.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Pending entry = batch.get(i);
+            try {
+                // An order cancelled while its batch was in flight stays cancelled
+                entry.order.transition(OrderStatus.PENDING, outcome(results.get(i)));
+                entry.result.complete(entry.order);
+            } catch (RuntimeException e) {
+                entry.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static OrderStatus outcome(PaymentResult result) {
+        if (result.isApproved()) {
+            return OrderStatus.PAID;
+        }
+        if (result.isUnavailable()) {
+            return OrderStatus.PAYMENT_FAILED; // Keeps its stock until retryPayment
+        }
+        if (result.isOutcomeUnknown()) {
+            return OrderStatus.PAYMENT_UNRESOLVED; // May have been charged, so only reconcilePayment settles it
+        }
+        return OrderStatus.CANCELLED;
+    }
+
+    private static final class Pending {
+        private final Order order;
+        private final CompletableFuture<Order> result;
+
+        private Pending(Order order, CompletableFuture<Order> result) {
+            this.order = order;
+            this.result = result;
+        }
+    }
+}
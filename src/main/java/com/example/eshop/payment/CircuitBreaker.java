@@ -0,0 +1,118 @@
+package com.example.eshop.payment;
+
+import java.time.Duration;
+
+/**
+ * Failure-rate circuit breaker over a sliding window of the last {@code windowSize} calls. It opens once at least
+ * {@code minimumCalls} calls are in the window and the share of failures reaches the threshold; while open, every
+ * call is refused. After the open duration a single trial call is let through: its success closes the breaker with
+ * an empty window, its failure opens it again. A closed breaker admits calls with one volatile read.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+
+    private volatile State state = State.CLOSED;
+    // Guarded by this
+    private int next;
+    private int calls;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("Minimum calls must be between 1 and the window size");
+        }
+        if (failureRateThreshold <= 0.0 || failureRateThreshold > 1.0) {
+            throw new IllegalArgumentException("Failure rate threshold must be above 0 and at most 1");
+        }
+        if (openDuration.isNegative() || openDuration.isZero()) {
+            throw new IllegalArgumentException("Open duration must be positive");
+        }
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    // Every admitted call must be followed by onSuccess or onFailure
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN && !trialInFlight) {
+                trialInFlight = true;
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+                open();
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Share of failed calls in the current window, 0 when it is empty
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0.0 : (double) failures / calls;
+    }
+
+    private void record(boolean failed) {
+        if (calls == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+}
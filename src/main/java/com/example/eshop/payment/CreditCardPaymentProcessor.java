@@ -1,14 +1,33 @@
 package com.example.eshop.payment;
 
+import com.example.eshop.money.Money;
 import java.math.BigDecimal;
 
 public class CreditCardPaymentProcessor implements PaymentProcessor {
+    private final PaymentEventSink eventSink;
+
+    public CreditCardPaymentProcessor() {
+        this(PaymentEventSink.noop());
+    }
+
+    public CreditCardPaymentProcessor(PaymentEventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
     @Override
     public boolean processPayment(BigDecimal amount) {
         if (BigDecimal.ZERO.compareTo(amount) > 0) {
             throw new IllegalArgumentException("Refusing to process negative payment");
         }
-        System.out.println("Processing credit card payment of $" + amount);
+        return processPayment(Money.ofExact(amount));
+    }
+
+    @Override
+    public boolean processPayment(Money amount) {
+        if (amount.isNegative()) {
+            throw new IllegalArgumentException("Refusing to process negative payment");
+        }
+        eventSink.paymentProcessed(amount.getMinorUnits(), amount.getCurrency(), true);
         return true;
     }
 }
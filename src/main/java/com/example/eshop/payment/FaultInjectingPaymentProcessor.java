@@ -0,0 +1,71 @@
+package com.example.eshop.payment;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps a processor and makes some of its calls slow or fail, for testing how checkout copes with a degraded
+ * gateway. The failure rate and delay can be changed while calls are running, e.g. to have the gateway fail for
+ * a while and then recover. Injected failures are {@link IllegalStateException}s thrown before the wrapped
+ * processor is called.
+ */
+public class FaultInjectingPaymentProcessor implements PaymentProcessor {
+    private final PaymentProcessor delegate;
+    private final Random random;
+    private volatile double failureRate;
+    private volatile Duration delay = Duration.ZERO;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder injectedFailures = new LongAdder();
+
+    public FaultInjectingPaymentProcessor(PaymentProcessor delegate) {
+        this(delegate, new Random());
+    }
+
+    // A seeded random makes the sequence of injected failures repeatable
+    public FaultInjectingPaymentProcessor(PaymentProcessor delegate, Random random) {
+        this.delegate = delegate;
+        this.random = random;
+    }
+
+    public void setFailureRate(double failureRate) {
+        if (failureRate < 0.0 || failureRate > 1.0) {
+            throw new IllegalArgumentException("Failure rate must be between 0 and 1");
+        }
+        this.failureRate = failureRate;
+    }
+
+    public void setDelay(Duration delay) {
+        if (delay.isNegative()) {
+            throw new IllegalArgumentException("Delay must not be negative");
+        }
+        this.delay = delay;
+    }
+
+    @Override
+    public boolean processPayment(BigDecimal amount) {
+        calls.increment();
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing payment", e);
+        }
+        double rate = failureRate;
+        if (rate > 0.0 && random.nextDouble() < rate) {
+            injectedFailures.increment();
+            throw new IllegalStateException("Injected payment gateway failure");
+        }
+        return delegate.processPayment(amount);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getInjectedFailures() {
+        return injectedFailures.sum();
+    }
+}
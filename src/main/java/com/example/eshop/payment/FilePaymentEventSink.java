@@ -0,0 +1,150 @@
+package com.example.eshop.payment;
+
+import com.example.eshop.money.Money;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends payment events to a file as {@code epochMillis,amount,currency,APPROVED|DECLINED} lines.
+ * Producers claim a slot in a preallocated ring buffer with one CAS and write primitive fields into it,
+ * so publishing neither locks nor allocates; a single background thread formats and writes the lines.
+ * When the buffer is full the event is dropped and counted rather than stalling checkout. Closing stops new
+ * claims first, then writes every event claimed before that, so each event is either written or counted.
+ */
+public class FilePaymentEventSink implements PaymentEventSink, AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Set in claimed by close; producers' CAS then fails, so nothing can be claimed after the last slot is drained
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final int mask;
+    private final long[] timestamps;
+    private final long[] amounts;
+    private final Currency[] currencies;
+    private final boolean[] outcomes;
+    // Slot i holds the sequence number last published into it; the drainer waits until it matches
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long drained;
+    private final LongAdder dropped = new LongAdder();
+    private final Writer writer;
+    private final Thread drainer;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    public FilePaymentEventSink(Path file, int capacity) throws IOException {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two");
+        }
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.amounts = new long[capacity];
+        this.currencies = new Currency[capacity];
+        this.outcomes = new boolean[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.drainer = Thread.ofPlatform().name("payment-event-drainer").daemon().start(this::drain);
+    }
+
+    @Override
+    public void paymentProcessed(long amountMinorUnits, Currency currency, boolean approved) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if ((sequence & CLOSED) != 0 || sequence - drained > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        timestamps[slot] = System.currentTimeMillis();
+        amounts[slot] = amountMinorUnits;
+        currencies[slot] = currency;
+        outcomes[slot] = approved;
+        published.set(slot, sequence);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        claimed.getAndUpdate(sequence -> sequence | CLOSED);
+        running = false;
+        drainer.interrupt();
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void drain() {
+        StringBuilder line = new StringBuilder(64);
+        while (true) {
+            long sequence = drained;
+            int slot = (int) sequence & mask;
+            if (published.get(slot) == sequence) {
+                line.setLength(0);
+                line.append(timestamps[slot]).append(',')
+                        .append(BigDecimal.valueOf(amounts[slot], Money.fractionDigits(currencies[slot])).toPlainString()).append(',')
+                        .append(currencies[slot].getCurrencyCode()).append(',')
+                        .append(outcomes[slot] ? "APPROVED" : "DECLINED").append('\n');
+                currencies[slot] = null;
+                drained = sequence + 1;
+                write(line);
+            } else if (!running && (claimed.get() & ~CLOSED) == sequence) {
+                return;
+            } else {
+                flush();
+                if (running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                } else {
+                    // A producer claimed a slot just before close and is still filling it
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    private void write(CharSequence line) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void flush() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.eshop.payment;
+
+import java.util.Currency;
+
+public final class NoOpPaymentEventSink implements PaymentEventSink {
+    public static final NoOpPaymentEventSink INSTANCE = new NoOpPaymentEventSink();
+
+    private NoOpPaymentEventSink() {
+    }
+
+    @Override
+    public void paymentProcessed(long amountMinorUnits, Currency currency, boolean approved) {
+    }
+}
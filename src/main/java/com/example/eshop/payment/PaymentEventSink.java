@@ -0,0 +1,15 @@
+package com.example.eshop.payment;
+
+import java.util.Currency;
+
+/**
+ * Receives an audit event for every payment a processor handles. Called on the checkout hot path,
+ * so implementations must not block or allocate; see {@link FilePaymentEventSink}.
+ */
+public interface PaymentEventSink {
+    void paymentProcessed(long amountMinorUnits, Currency currency, boolean approved);
+
+    static PaymentEventSink noop() {
+        return NoOpPaymentEventSink.INSTANCE;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.eshop.payment;
+
+// The charge was sent but no answer came back in time, so it may have gone through: charging again could charge twice,
+// so the payment has to be reconciled with the gateway's records instead of retried
+public class PaymentOutcomeUnknownException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public PaymentOutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
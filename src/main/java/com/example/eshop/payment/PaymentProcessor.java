@@ -1,7 +1,40 @@
 package com.example.eshop.payment;
 
+import com.example.eshop.money.Money;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface PaymentProcessor {
     boolean processPayment(BigDecimal amount);
+
+    default boolean processPayment(Money amount) {
+        return processPayment(amount.toBigDecimal());
+    }
+
+    // Blocking processors run on the given executor; processors with a non-blocking gateway client should override this
+    default CompletableFuture<PaymentResult> processPaymentAsync(Money amount, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> PaymentResult.of(processPayment(amount)), executor);
+    }
+
+    // Results come back in request order. Batch-capable gateways should override this; the default
+    // adapter charges one at a time and declines a request whose charge throws, without failing the rest,
+    // except that an unavailable gateway or an unknown outcome is reported as such rather than as a decline
+    default List<PaymentResult> processPayments(List<PaymentRequest> requests) {
+        List<PaymentResult> results = new ArrayList<>(requests.size());
+        for (PaymentRequest request : requests) {
+            try {
+                results.add(PaymentResult.of(processPayment(request.getAmount())));
+            } catch (PaymentUnavailableException e) {
+                results.add(PaymentResult.unavailable(e.getMessage()));
+            } catch (PaymentOutcomeUnknownException e) {
+                results.add(PaymentResult.outcomeUnknown(e.getMessage()));
+            } catch (RuntimeException e) {
+                results.add(PaymentResult.declined(e.getMessage()));
+            }
+        }
+        return results;
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.eshop.payment;
+
+import com.example.eshop.money.Money;
+import java.util.Objects;
+import java.util.UUID;
+
+public final class PaymentRequest {
+    private final UUID reference;
+    private final Money amount;
+
+    public PaymentRequest(UUID reference, Money amount) {
+        this.reference = Objects.requireNonNull(reference, "reference");
+        this.amount = Objects.requireNonNull(amount, "amount");
+    }
+
+    public UUID getReference() {
+        return reference;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+}
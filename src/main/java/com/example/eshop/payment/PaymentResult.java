@@ -0,0 +1,64 @@
+package com.example.eshop.payment;
+
+public final class PaymentResult {
+    private static final PaymentResult APPROVED = new PaymentResult(Kind.APPROVED, null);
+    private static final PaymentResult DECLINED = new PaymentResult(Kind.DECLINED, "Payment declined");
+
+    // UNAVAILABLE was never charged and may be retried; UNKNOWN may have been charged and must be reconciled
+    private enum Kind { APPROVED, DECLINED, UNAVAILABLE, UNKNOWN }
+
+    private final Kind kind;
+    private final String reason;
+
+    private PaymentResult(Kind kind, String reason) {
+        this.kind = kind;
+        this.reason = reason;
+    }
+
+    public static PaymentResult approved() {
+        return APPROVED;
+    }
+
+    public static PaymentResult declined() {
+        return DECLINED;
+    }
+
+    public static PaymentResult declined(String reason) {
+        return new PaymentResult(Kind.DECLINED, reason);
+    }
+
+    // The batch counterpart of PaymentUnavailableException
+    public static PaymentResult unavailable(String reason) {
+        return new PaymentResult(Kind.UNAVAILABLE, reason);
+    }
+
+    // The batch counterpart of PaymentOutcomeUnknownException
+    public static PaymentResult outcomeUnknown(String reason) {
+        return new PaymentResult(Kind.UNKNOWN, reason);
+    }
+
+    public static PaymentResult of(boolean approved) {
+        return approved ? APPROVED : DECLINED;
+    }
+
+    public boolean isApproved() {
+        return kind == Kind.APPROVED;
+    }
+
+    public boolean isUnavailable() {
+        return kind == Kind.UNAVAILABLE;
+    }
+
+    public boolean isOutcomeUnknown() {
+        return kind == Kind.UNKNOWN;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.APPROVED ? "APPROVED" : kind + ": " + reason;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.eshop.payment;
+
+// The payment could not be attempted or the gateway answered with an error, so nothing was charged and the charge
+// may be retried later. A call that got no answer at all is a PaymentOutcomeUnknownException instead
+public class PaymentUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public PaymentUnavailableException(String message) {
+        super(message);
+    }
+
+    public PaymentUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
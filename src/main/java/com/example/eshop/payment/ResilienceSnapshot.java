@@ -0,0 +1,71 @@
+package com.example.eshop.payment;
+
+public class ResilienceSnapshot {
+    private final CircuitBreaker.State state;
+    private final double failureRate;
+    private final long calls;
+    private final long failures;
+    private final long timeouts;
+    private final long rejectedByBreaker;
+    private final long rejectedByBulkhead;
+    private final long retries;
+    private final long hedges;
+    private final int inFlight;
+
+    ResilienceSnapshot(CircuitBreaker.State state, double failureRate, long calls, long failures, long timeouts,
+                       long rejectedByBreaker, long rejectedByBulkhead, long retries, long hedges, int inFlight) {
+        this.state = state;
+        this.failureRate = failureRate;
+        this.calls = calls;
+        this.failures = failures;
+        this.timeouts = timeouts;
+        this.rejectedByBreaker = rejectedByBreaker;
+        this.rejectedByBulkhead = rejectedByBulkhead;
+        this.retries = retries;
+        this.hedges = hedges;
+        this.inFlight = inFlight;
+    }
+
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    // Over the breaker's current window
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    // Calls that reached the wrapped processor
+    public long getCalls() {
+        return calls;
+    }
+
+    // Calls that threw or timed out; timeouts are included
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getRejectedByBreaker() {
+        return rejectedByBreaker;
+    }
+
+    public long getRejectedByBulkhead() {
+        return rejectedByBulkhead;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public long getHedges() {
+        return hedges;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.eshop.payment;
+
+import com.example.eshop.money.Money;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Guards calls to a payment gateway. Each call needs a bulkhead permit (at most {@code maxConcurrentCalls} calls
+ * in flight) and the circuit breaker's admission, and is abandoned after the call timeout; exceptions and timeouts
+ * count as failures for the breaker, declines don't. When a call can't be made or fails, the caller gets a
+ * {@link PaymentUnavailableException} right away instead of queueing behind a degraded gateway. When a call times
+ * out, the charge may still go through, so the caller gets a {@link PaymentOutcomeUnknownException} instead and
+ * must not simply charge again. An abandoned call keeps its bulkhead permit until the gateway call actually returns,
+ * so the bulkhead bounds the calls really in flight. Invalid amounts ({@link IllegalArgumentException}) are passed
+ * through untouched.
+ * <p>
+ * Retries are off by default, since charging twice is worse than failing. With {@code maxAttempts > 1}, a failed
+ * attempt is retried at once, and with a hedge delay, an attempt still running after that delay gets a second one
+ * started next to it; the first answer wins. Only enable this for gateways that deduplicate charges.
+ */
+public class ResilientPaymentProcessor implements PaymentProcessor {
+    private static final Duration DEFAULT_CALL_TIMEOUT = Duration.ofSeconds(10);
+    private static final int DEFAULT_MAX_CONCURRENT_CALLS = 64;
+
+    private final PaymentProcessor delegate;
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final Duration callTimeout;
+    private final int maxAttempts;
+    private final Duration hedgeDelay;
+    // Runs blocking calls made through processPayment, so they can be timed out like async ones
+    private final ThreadFactory callThreads = Thread.ofVirtual().name("payment-call-", 0).factory();
+    private final Executor callExecutor = task -> callThreads.newThread(task).start();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejectedByBreaker = new LongAdder();
+    private final LongAdder rejectedByBulkhead = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    // Opens at a 50% failure rate over the last 20 calls, once 10 were made, for 30 seconds
+    public ResilientPaymentProcessor(PaymentProcessor delegate) {
+        this(delegate, new CircuitBreaker(20, 10, 0.5, Duration.ofSeconds(30)), DEFAULT_MAX_CONCURRENT_CALLS, DEFAULT_CALL_TIMEOUT);
+    }
+
+    public ResilientPaymentProcessor(PaymentProcessor delegate, CircuitBreaker breaker, int maxConcurrentCalls, Duration callTimeout) {
+        this(delegate, breaker, maxConcurrentCalls, callTimeout, 1, null);
+    }
+
+    /**
+     * @param hedgeDelay how long an attempt may run before another is started next to it, or null to only retry failures
+     */
+    public ResilientPaymentProcessor(PaymentProcessor delegate, CircuitBreaker breaker, int maxConcurrentCalls, Duration callTimeout,
+                                     int maxAttempts, Duration hedgeDelay) {
+        if (maxConcurrentCalls <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Concurrent call limit and attempts must be greater than zero");
+        }
+        if (callTimeout.isNegative() || callTimeout.isZero() || hedgeDelay != null && (hedgeDelay.isNegative() || hedgeDelay.isZero())) {
+            throw new IllegalArgumentException("Call timeout and hedge delay must be positive");
+        }
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.callTimeout = callTimeout;
+        this.maxAttempts = maxAttempts;
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    @Override
+    public boolean processPayment(BigDecimal amount) {
+        return processPayment(Money.ofExact(amount));
+    }
+
+    @Override
+    public boolean processPayment(Money amount) {
+        try {
+            return processPaymentAsync(amount, callExecutor).join().isApproved();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> processPaymentAsync(Money amount, Executor executor) {
+        Call call = new Call(amount, executor);
+        call.launch();
+        return call.result;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    public ResilienceSnapshot snapshot() {
+        return new ResilienceSnapshot(breaker.getState(), breaker.getFailureRate(), calls.sum(), failures.sum(), timeouts.sum(),
+                rejectedByBreaker.sum(), rejectedByBulkhead.sum(), retries.sum(), hedges.sum(),
+                maxConcurrentCalls - bulkhead.availablePermits());
+    }
+
+    // One attempt against the gateway; never throws, rejections come back as failed futures
+    private CompletableFuture<PaymentResult> attempt(Money amount, Executor executor) {
+        if (!bulkhead.tryAcquire()) {
+            rejectedByBulkhead.increment();
+            return CompletableFuture.failedFuture(new PaymentUnavailableException("Too many payment calls in flight"));
+        }
+        if (!breaker.tryAcquire()) {
+            bulkhead.release();
+            rejectedByBreaker.increment();
+            return CompletableFuture.failedFuture(new PaymentUnavailableException("Payment circuit is open"));
+        }
+        calls.increment();
+        CompletableFuture<PaymentResult> call;
+        try {
+            call = delegate.processPaymentAsync(amount, executor);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        // The caller stops waiting at the timeout, but the permit is only returned once the gateway call returns
+        call.whenComplete((result, failure) -> bulkhead.release());
+        return call.copy().orTimeout(callTimeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((result, failure) -> {
+            Throwable cause = unwrap(failure);
+            if (cause == null || cause instanceof IllegalArgumentException) {
+                breaker.onSuccess(); // The gateway answered, even if only to reject the request
+            } else {
+                failures.increment();
+                if (cause instanceof TimeoutException) {
+                    timeouts.increment();
+                }
+                breaker.onFailure();
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    // The attempts made for one payment; the first successful answer completes the result
+    private final class Call {
+        private final Money amount;
+        private final Executor executor;
+        private final CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+        // Guarded by this
+        private int started;
+        private int failed;
+        // Some attempt timed out, so it may have charged
+        private boolean timedOut;
+
+        private Call(Money amount, Executor executor) {
+            this.amount = amount;
+            this.executor = executor;
+        }
+
+        private void launch() {
+            synchronized (this) {
+                if (result.isDone() || started == maxAttempts) {
+                    return;
+                }
+                started++;
+            }
+            CompletableFuture<PaymentResult> attempt = attempt(amount, executor);
+            if (hedgeDelay != null && !attempt.isDone()) {
+                CompletableFuture.delayedExecutor(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                    if (!attempt.isDone() && !result.isDone()) {
+                        hedges.increment();
+                        launch();
+                    }
+                });
+            }
+            attempt.whenComplete(this::completed);
+        }
+
+        private void completed(PaymentResult answer, Throwable failure) {
+            if (failure == null) {
+                result.complete(answer);
+                return;
+            }
+            Throwable cause = unwrap(failure);
+            if (cause instanceof IllegalArgumentException) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            boolean retry;
+            boolean exhausted;
+            boolean ambiguous;
+            int attempts;
+            synchronized (this) {
+                failed++;
+                timedOut |= cause instanceof TimeoutException;
+                attempts = started;
+                retry = started < maxAttempts;
+                exhausted = !retry && failed == started;
+                ambiguous = timedOut;
+            }
+            if (retry) {
+                retries.increment();
+                launch();
+            } else if (exhausted && ambiguous) {
+                result.completeExceptionally(new PaymentOutcomeUnknownException(
+                        "No answer from the gateway after " + attempts + " attempt(s); the charge may have gone through", cause));
+            } else if (exhausted) {
+                result.completeExceptionally(cause instanceof PaymentUnavailableException unavailable ? unavailable
+                        : new PaymentUnavailableException("Payment failed after " + attempts + " attempt(s)", cause));
+            }
+        }
+    }
+}
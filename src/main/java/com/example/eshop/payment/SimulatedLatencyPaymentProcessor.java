@@ -0,0 +1,77 @@
+package com.example.eshop.payment;
+
+import com.example.eshop.money.Money;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in gateway for local load tests: answers after a configurable latency (plus optional jitter)
+ * and declines a configurable fraction of payments. The async path waits on a timer rather than a thread.
+ */
+public class SimulatedLatencyPaymentProcessor implements PaymentProcessor {
+    private final Duration latency;
+    private final Duration jitter;
+    private final double declineRate;
+
+    public SimulatedLatencyPaymentProcessor(Duration latency) {
+        this(latency, Duration.ZERO, 0.0);
+    }
+
+    public SimulatedLatencyPaymentProcessor(Duration latency, Duration jitter, double declineRate) {
+        if (latency.isNegative() || jitter.isNegative()) {
+            throw new IllegalArgumentException("Latency and jitter must not be negative");
+        }
+        if (declineRate < 0.0 || declineRate > 1.0) {
+            throw new IllegalArgumentException("Decline rate must be between 0 and 1");
+        }
+        this.latency = latency;
+        this.jitter = jitter;
+        this.declineRate = declineRate;
+    }
+
+    @Override
+    public boolean processPayment(BigDecimal amount) {
+        if (BigDecimal.ZERO.compareTo(amount) > 0) {
+            throw new IllegalArgumentException("Refusing to process negative payment");
+        }
+        return processPayment(Money.ofExact(amount));
+    }
+
+    @Override
+    public boolean processPayment(Money amount) {
+        requireNonNegative(amount);
+        try {
+            TimeUnit.NANOSECONDS.sleep(nextDelayNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return decide();
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> processPaymentAsync(Money amount, Executor executor) {
+        requireNonNegative(amount);
+        Executor delayed = CompletableFuture.delayedExecutor(nextDelayNanos(), TimeUnit.NANOSECONDS, executor);
+        return CompletableFuture.supplyAsync(() -> PaymentResult.of(decide()), delayed);
+    }
+
+    private long nextDelayNanos() {
+        long jitterNanos = jitter.toNanos();
+        return latency.toNanos() + (jitterNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitterNanos + 1));
+    }
+
+    private boolean decide() {
+        return declineRate == 0.0 || ThreadLocalRandom.current().nextDouble() >= declineRate;
+    }
+
+    private static void requireNonNegative(Money amount) {
+        if (amount.isNegative()) {
+            throw new IllegalArgumentException("Refusing to process negative payment");
+        }
+    }
+}
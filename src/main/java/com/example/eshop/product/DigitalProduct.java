@@ -1,6 +1,7 @@
 package com.example.eshop.product;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 public class DigitalProduct extends Product {
     private String downloadUrl;
@@ -10,6 +11,11 @@ public class DigitalProduct extends Product {
         this.downloadUrl = downloadUrl;
     }
 
+    public DigitalProduct(UUID id, String name, String description, BigDecimal price, String downloadUrl) {
+        super(id, name, description, price);
+        this.downloadUrl = downloadUrl;
+    }
+
     public String getDownloadUrl() {
         return downloadUrl;
     }
@@ -1,6 +1,7 @@
 package com.example.eshop.product;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 public class PhysicalProduct extends Product {
     private double weight;
@@ -12,6 +13,12 @@ public class PhysicalProduct extends Product {
         this.shippingCost = shippingCost;
     }
 
+    public PhysicalProduct(UUID id, String name, String description, BigDecimal price, double weight, BigDecimal shippingCost) {
+        super(id, name, description, price);
+        this.weight = weight;
+        this.shippingCost = shippingCost;
+    }
+
     public double getWeight() {
         return weight;
     }
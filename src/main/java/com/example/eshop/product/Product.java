@@ -1,19 +1,37 @@
 package com.example.eshop.product;
 
+import com.example.eshop.id.IdGenerators;
+import com.example.eshop.money.Money;
 import java.math.BigDecimal;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class Product {
+    // Bumped on every price change anywhere, so holders of priced lines can tell in O(1) whether anything changed
+    private static final AtomicLong PRICE_VERSIONS = new AtomicLong();
+
     private final UUID id;
     private String name;
     private String description;
     private BigDecimal price;
+    // The price in minor units, rounded half-even when the price is finer than that
+    private Money roundedPrice;
+    private boolean exactPrice;
+    private volatile long priceVersion;
+    private volatile ProductCatalog catalog;
 
     public Product(String name, String description, BigDecimal price) {
-        this.id = UUID.randomUUID();
+        this(IdGenerators.nextId(), name, description, price);
+    }
+
+    // Restores a product under the id it was given elsewhere, e.g. when decoding it
+    protected Product(UUID id, String name, String description, BigDecimal price) {
+        this.id = id;
         this.name = name;
         this.description = description;
+        this.roundedPrice = toMinorUnits(price);
+        this.exactPrice = isExact(price, roundedPrice);
         this.price = price;
     }
 
@@ -26,7 +44,12 @@ public abstract class Product {
     }
 
     public void setName(String name) {
-        this.name = name;
+        ProductCatalog owner = catalog;
+        if (owner != null) {
+            owner.rename(this, name);
+        } else {
+            assignName(name);
+        }
     }
 
     public String getDescription() {
@@ -42,7 +65,68 @@ public abstract class Product {
     }
 
     public void setPrice(BigDecimal price) {
+        ProductCatalog owner = catalog;
+        if (owner != null) {
+            owner.reprice(this, price);
+        } else {
+            assignPrice(price);
+        }
+    }
+
+    // A price finer than the minor unit is kept as it is, but can't be charged: rounding it before multiplying
+    // by a quantity would make line totals drift from price times quantity
+    public Money getUnitPrice() {
+        if (!exactPrice) {
+            throw new IllegalArgumentException("Price " + price.toPlainString() + " of " + name
+                    + " has more decimal places than " + roundedPrice.getCurrency() + " allows");
+        }
+        return roundedPrice;
+    }
+
+    // For indexing by price, where a product priced finer than the minor unit still needs a place
+    Money getRoundedPrice() {
+        return roundedPrice;
+    }
+
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    public static long currentPriceVersion() {
+        return PRICE_VERSIONS.get();
+    }
+
+    ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    void setCatalog(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    void assignName(String name) {
+        this.name = name;
+    }
+
+    void assignPrice(BigDecimal price) {
+        Money converted = toMinorUnits(price);
         this.price = price;
+        this.roundedPrice = converted;
+        this.exactPrice = isExact(price, converted);
+        this.priceVersion = PRICE_VERSIONS.incrementAndGet();
+    }
+
+    // Prices too large to count in minor units are refused outright, since nothing could ever price them
+    private static Money toMinorUnits(BigDecimal price) {
+        try {
+            return Money.of(price);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + price + " is out of range", e);
+        }
+    }
+
+    private static boolean isExact(BigDecimal price, Money rounded) {
+        return rounded.toBigDecimal().compareTo(price) == 0;
     }
 
     @Override
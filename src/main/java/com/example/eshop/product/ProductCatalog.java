@@ -0,0 +1,213 @@
+package com.example.eshop.product;
+
+import com.example.eshop.money.Money;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory product index: hash lookup by id, sorted indexes on price and lower-cased name,
+ * and one partition per concrete product class. A product belongs to at most one catalog, which
+ * lets {@link Product#setName} and {@link Product#setPrice} re-index it under the catalog's lock.
+ * Ids are unique: adding another instance under an id that is already taken is refused. Prices are indexed
+ * in minor units, so a product priced finer than that is found under its rounded price.
+ */
+public class ProductCatalog {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Product> byId = new HashMap<>();
+    private final NavigableMap<Long, Set<Product>> byPrice = new TreeMap<>();
+    private final NavigableMap<String, Set<Product>> byName = new TreeMap<>();
+    private final Map<Class<? extends Product>, Set<Product>> byType = new HashMap<>();
+
+    public boolean add(Product product) {
+        lock.writeLock().lock();
+        try {
+            return addUnlocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int addAll(Collection<? extends Product> products) {
+        // One lock acquisition for the whole batch
+        lock.writeLock().lock();
+        try {
+            int added = 0;
+            for (Product product : products) {
+                if (addUnlocked(product)) {
+                    added++;
+                }
+            }
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (product.getCatalog() != this || byId.remove(product.getId()) == null) {
+                return false;
+            }
+            unindex(byPrice, product.getRoundedPrice().getMinorUnits(), product);
+            unindex(byName, nameKey(product.getName()), product);
+            unindex(byType, product.getClass(), product);
+            product.setCatalog(null);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Product> findById(UUID id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(byId.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Product> findByNamePrefix(String prefix) {
+        String key = nameKey(prefix);
+        lock.readLock().lock();
+        try {
+            List<Product> result = new ArrayList<>();
+            for (Map.Entry<String, Set<Product>> entry : byName.tailMap(key, true).entrySet()) {
+                if (!entry.getKey().startsWith(key)) {
+                    break;
+                }
+                result.addAll(entry.getValue());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Product> findByPriceRange(Money min, Money max) {
+        requireCurrency(min.getCurrency());
+        requireCurrency(max.getCurrency());
+        lock.readLock().lock();
+        try {
+            List<Product> result = new ArrayList<>();
+            for (Set<Product> products : byPrice.subMap(min.getMinorUnits(), true, max.getMinorUnits(), true).values()) {
+                result.addAll(products);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public <T extends Product> List<T> findByType(Class<T> type) {
+        lock.readLock().lock();
+        try {
+            List<T> result = new ArrayList<>();
+            for (Map.Entry<Class<? extends Product>, Set<Product>> entry : byType.entrySet()) {
+                if (type.isAssignableFrom(entry.getKey())) {
+                    for (Product product : entry.getValue()) {
+                        result.add(type.cast(product));
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void rename(Product product, String name) {
+        lock.writeLock().lock();
+        try {
+            if (product.getCatalog() != this) {
+                // Removed from this catalog while the caller was waiting for the lock
+                product.assignName(name);
+                return;
+            }
+            unindex(byName, nameKey(product.getName()), product);
+            product.assignName(name);
+            index(byName, nameKey(name), product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void reprice(Product product, BigDecimal price) {
+        lock.writeLock().lock();
+        try {
+            if (product.getCatalog() != this) {
+                product.assignPrice(price);
+                return;
+            }
+            Money previous = product.getRoundedPrice();
+            product.assignPrice(price);
+            unindex(byPrice, previous.getMinorUnits(), product);
+            index(byPrice, product.getRoundedPrice().getMinorUnits(), product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean addUnlocked(Product product) {
+        if (product.getCatalog() == this) {
+            return false;
+        }
+        if (product.getCatalog() != null) {
+            throw new IllegalStateException("Product " + product.getId() + " already belongs to another catalog");
+        }
+        if (byId.putIfAbsent(product.getId(), product) != null) {
+            return false;
+        }
+        index(byPrice, product.getRoundedPrice().getMinorUnits(), product);
+        index(byName, nameKey(product.getName()), product);
+        index(byType, product.getClass(), product);
+        product.setCatalog(this);
+        return true;
+    }
+
+    // Products are all priced in Money's default currency
+    private static void requireCurrency(Currency other) {
+        if (!Money.DEFAULT_CURRENCY.equals(other)) {
+            throw new IllegalArgumentException("Catalog is priced in " + Money.DEFAULT_CURRENCY + ", not " + other);
+        }
+    }
+
+    private static String nameKey(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static <K> void index(Map<K, Set<Product>> index, K key, Product product) {
+        index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(product);
+    }
+
+    private static <K> void unindex(Map<K, Set<Product>> index, K key, Product product) {
+        Set<Product> products = index.get(key);
+        if (products != null && products.remove(product) && products.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
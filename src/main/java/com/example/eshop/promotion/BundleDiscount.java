@@ -0,0 +1,41 @@
+package com.example.eshop.promotion;
+
+import com.example.eshop.money.Money;
+import com.example.eshop.product.Product;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A set of products sold together for a fixed price. Every complete set in the cart is discounted by the
+ * difference between its price after line discounts and the bundle price, so a set never costs less than the
+ * bundle price however the line rules and the bundle combine.
+ */
+public class BundleDiscount extends PromotionRule {
+    private final Map<UUID, Integer> quantities = new LinkedHashMap<>();
+    private final Money bundlePrice;
+
+    public BundleDiscount(String name, Map<Product, Integer> contents, Money bundlePrice) {
+        super(name);
+        if (contents.isEmpty()) {
+            throw new IllegalArgumentException("A bundle needs at least one product");
+        }
+        for (Map.Entry<Product, Integer> entry : contents.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+            quantities.put(entry.getKey().getId(), entry.getValue());
+        }
+        this.bundlePrice = bundlePrice;
+    }
+
+    // Units of each product making up one bundle
+    public Map<UUID, Integer> getQuantities() {
+        return Collections.unmodifiableMap(quantities);
+    }
+
+    public Money getBundlePrice() {
+        return bundlePrice;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.eshop.promotion;
+
+// For every buy + free units on a line, the free units cost nothing
+public class BuyXGetYFree extends LineRule {
+    private final int buy;
+    private final int free;
+
+    public BuyXGetYFree(String name, RuleTarget target, int buy, int free) {
+        super(name, target);
+        if (buy <= 0 || free <= 0) {
+            throw new IllegalArgumentException("Bought and free quantities must be greater than zero");
+        }
+        this.buy = buy;
+        this.free = free;
+    }
+
+    @Override
+    protected long discount(long unitPrice, int quantity) {
+        long freeUnits = (long) (quantity / (buy + free)) * free;
+        return Math.multiplyExact(unitPrice, freeUnits);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.eshop.promotion;
+
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.cart.ShoppingCart;
+import com.example.eshop.money.Money;
+import com.example.eshop.product.Product;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Applies a {@link PromotionPlan} to one cart, re-evaluating incrementally: each call compares the cart's lines
+ * with the quantities and unit prices seen last time, and only lines that were added, changed, repriced or
+ * removed are run through the plan again, along with the bundles containing them. Not thread-safe, like {@link ShoppingCart}.
+ * Discounts stack in one order: each line first gets its best line rule, then a bundle takes the bundled units
+ * at those discounted prices down to the bundle price. A bundle that is no cheaper than its discounted units
+ * saves nothing. Bundles sharing a product compete for its units: the one saving most per set takes its sets
+ * first (the earlier in the plan on a tie) and later ones only get the units left, so no unit is ever
+ * discounted twice over. Because of that, a changed line re-prices every bundle linked to its own through
+ * shared products.
+ */
+public class CartPromotions {
+    private final PromotionPlan plan;
+    private final Map<UUID, LineState> lines = new HashMap<>();
+    private final Map<BundleDiscount, Long> bundleDiscounts = new HashMap<>();
+    private long lineDiscountTotal;
+    private long bundleDiscountTotal;
+    private long pass;
+
+    public CartPromotions(PromotionPlan plan) {
+        this.plan = plan;
+    }
+
+    public PromotionResult evaluate(ShoppingCart cart) {
+        Money subtotal = cart.getTotal();
+        pass++;
+        Set<BundleDiscount> staleBundles = new HashSet<>();
+        for (CartItem item : cart.getItems()) {
+            Product product = item.getProduct();
+            long unitPrice = product.getUnitPrice().getMinorUnits();
+            LineState line = lines.get(product.getId());
+            if (line == null) {
+                line = new LineState(product);
+                lines.put(product.getId(), line);
+            }
+            line.seenIn = pass;
+            if (line.quantity != item.getQuantity() || line.unitPrice != unitPrice) {
+                long discount = plan.lineDiscount(product, unitPrice, item.getQuantity());
+                lineDiscountTotal = Math.addExact(lineDiscountTotal, discount - line.discount);
+                line.quantity = item.getQuantity();
+                line.unitPrice = unitPrice;
+                line.discount = discount;
+                Collections.addAll(staleBundles, plan.bundlesContaining(product.getId()));
+            }
+        }
+        if (lines.size() > cart.size()) {
+            for (Iterator<LineState> it = lines.values().iterator(); it.hasNext(); ) {
+                LineState line = it.next();
+                if (line.seenIn != pass) {
+                    lineDiscountTotal -= line.discount;
+                    Collections.addAll(staleBundles, plan.bundlesContaining(line.product.getId()));
+                    it.remove();
+                }
+            }
+        }
+        if (!staleBundles.isEmpty()) {
+            repriceBundles(connected(staleBundles), subtotal);
+        }
+        return new PromotionResult(subtotal, Money.ofMinor(lineDiscountTotal, subtotal.getCurrency()),
+                Money.ofMinor(bundleDiscountTotal, subtotal.getCurrency()), lineDiscounts(subtotal));
+    }
+
+    // The stale bundles plus every bundle sharing a product with one of them, directly or through others
+    private List<BundleDiscount> connected(Set<BundleDiscount> staleBundles) {
+        Set<BundleDiscount> group = new HashSet<>(staleBundles);
+        Deque<BundleDiscount> toVisit = new ArrayDeque<>(staleBundles);
+        while (!toVisit.isEmpty()) {
+            for (UUID productId : toVisit.pop().getQuantities().keySet()) {
+                for (BundleDiscount bundle : plan.bundlesContaining(productId)) {
+                    if (group.add(bundle)) {
+                        toVisit.push(bundle);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(group);
+    }
+
+    private void repriceBundles(List<BundleDiscount> group, Money subtotal) {
+        Map<BundleDiscount, Long> setSavings = new HashMap<>();
+        for (BundleDiscount bundle : group) {
+            setSavings.put(bundle, setSaving(bundle, subtotal));
+        }
+        group.sort(Comparator.comparingLong((BundleDiscount bundle) -> -setSavings.get(bundle)).thenComparingInt(plan::bundleRank));
+        Map<UUID, Integer> taken = new HashMap<>();
+        for (BundleDiscount bundle : group) {
+            long discount = setSavings.get(bundle) > 0 ? bundleDiscount(bundle, taken) : 0;
+            Long previous = discount == 0 ? bundleDiscounts.remove(bundle) : bundleDiscounts.put(bundle, discount);
+            bundleDiscountTotal = Math.addExact(bundleDiscountTotal, discount - (previous == null ? 0 : previous));
+        }
+    }
+
+    // Saving on one set, for ordering competing bundles; 0 when the cart is missing one of its products
+    private long setSaving(BundleDiscount bundle, Money subtotal) {
+        if (!bundle.getBundlePrice().getCurrency().equals(subtotal.getCurrency())) {
+            throw new IllegalArgumentException("Bundle " + bundle + " is priced in " + bundle.getBundlePrice().getCurrency());
+        }
+        long discountedPrice = 0;
+        for (Map.Entry<UUID, Integer> part : bundle.getQuantities().entrySet()) {
+            LineState line = lines.get(part.getKey());
+            if (line == null) {
+                return 0;
+            }
+            long lineNet = Math.multiplyExact(line.unitPrice, line.quantity) - line.discount;
+            discountedPrice = Math.addExact(discountedPrice, Math.multiplyExact(lineNet, part.getValue()) / line.quantity);
+        }
+        return discountedPrice - bundle.getBundlePrice().getMinorUnits();
+    }
+
+    // Saving on the complete sets left after the units other bundles took, measured from the bundled units'
+    // prices after line discounts; the units this bundle uses are added to taken
+    private long bundleDiscount(BundleDiscount bundle, Map<UUID, Integer> taken) {
+        long sets = Long.MAX_VALUE;
+        for (Map.Entry<UUID, Integer> part : bundle.getQuantities().entrySet()) {
+            LineState line = lines.get(part.getKey());
+            sets = Math.min(sets, (line.quantity - taken.getOrDefault(part.getKey(), 0)) / part.getValue());
+        }
+        if (sets == 0) {
+            return 0;
+        }
+        long discountedPrice = 0;
+        for (Map.Entry<UUID, Integer> part : bundle.getQuantities().entrySet()) {
+            LineState line = lines.get(part.getKey());
+            // The bundled units' share of the line after its line discount
+            long lineNet = Math.multiplyExact(line.unitPrice, line.quantity) - line.discount;
+            long units = Math.multiplyExact(sets, part.getValue());
+            taken.merge(part.getKey(), (int) units, Integer::sum);
+            discountedPrice = Math.addExact(discountedPrice, Math.multiplyExact(lineNet, units) / line.quantity);
+        }
+        long saving = discountedPrice - Math.multiplyExact(sets, bundle.getBundlePrice().getMinorUnits());
+        return Math.max(saving, 0);
+    }
+
+    private Map<UUID, Money> lineDiscounts(Money subtotal) {
+        Map<UUID, Money> discounts = new HashMap<>();
+        for (LineState line : lines.values()) {
+            if (line.discount != 0) {
+                discounts.put(line.product.getId(), Money.ofMinor(line.discount, subtotal.getCurrency()));
+            }
+        }
+        return Collections.unmodifiableMap(discounts);
+    }
+
+    private static final class LineState {
+        private final Product product;
+        private int quantity;
+        private long unitPrice;
+        private long discount;
+        private long seenIn;
+
+        private LineState(Product product) {
+            this.product = product;
+        }
+    }
+}
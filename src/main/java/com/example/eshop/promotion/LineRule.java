@@ -0,0 +1,21 @@
+package com.example.eshop.promotion;
+
+/**
+ * A promotion priced on a single cart line. When several line rules match a line, only the one giving the
+ * largest discount is applied.
+ */
+public abstract class LineRule extends PromotionRule {
+    private final RuleTarget target;
+
+    protected LineRule(String name, RuleTarget target) {
+        super(name);
+        this.target = target;
+    }
+
+    public RuleTarget getTarget() {
+        return target;
+    }
+
+    // Discount in minor units for a line of quantity units at unitPrice minor units each
+    protected abstract long discount(long unitPrice, int quantity);
+}
@@ -0,0 +1,29 @@
+package com.example.eshop.promotion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public class PercentageDiscount extends LineRule {
+    private final BigDecimal fraction;
+
+    public PercentageDiscount(String name, RuleTarget target, BigDecimal percent) {
+        super(name, target);
+        this.fraction = fractionOf(percent);
+    }
+
+    @Override
+    protected long discount(long unitPrice, int quantity) {
+        return percentOf(Math.multiplyExact(unitPrice, quantity), fraction);
+    }
+
+    static BigDecimal fractionOf(BigDecimal percent) {
+        if (percent.signum() < 0 || percent.compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new IllegalArgumentException("Percent must be between 0 and 100");
+        }
+        return percent.movePointLeft(2);
+    }
+
+    static long percentOf(long amount, BigDecimal fraction) {
+        return BigDecimal.valueOf(amount).multiply(fraction).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.eshop.promotion;
+
+import com.example.eshop.product.Product;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Active promotions compiled for evaluation. Line rules are indexed by product id and by product type, so
+ * pricing a line only looks at the rules that can match it rather than at every active rule; the type rules
+ * matching a product class (including those declared on its superclasses) are resolved once per class.
+ * Bundles are indexed by each product they contain, so a changed line only re-prices the bundles it is part of
+ * and those sharing products with them.
+ * A plan is immutable and can be shared by any number of carts and threads.
+ */
+public final class PromotionPlan {
+    private static final LineRule[] NO_LINE_RULES = new LineRule[0];
+    private static final BundleDiscount[] NO_BUNDLES = new BundleDiscount[0];
+
+    private final Map<UUID, LineRule[]> productRules;
+    private final Map<Class<?>, LineRule[]> declaredTypeRules;
+    private final LineRule[] globalRules;
+    private final Map<UUID, BundleDiscount[]> bundlesByProduct;
+    // Position of each bundle among the plan's bundles, for breaking ties between overlapping bundles
+    private final Map<BundleDiscount, Integer> bundleRanks;
+    private final int ruleCount;
+    private final ClassValue<LineRule[]> typeRules = new ClassValue<>() {
+        @Override
+        protected LineRule[] computeValue(Class<?> type) {
+            List<LineRule> matching = new ArrayList<>();
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                LineRule[] declared = declaredTypeRules.get(current);
+                if (declared != null) {
+                    matching.addAll(List.of(declared));
+                }
+            }
+            return matching.toArray(NO_LINE_RULES);
+        }
+    };
+
+    private PromotionPlan(Map<UUID, LineRule[]> productRules, Map<Class<?>, LineRule[]> declaredTypeRules, LineRule[] globalRules,
+                          Map<UUID, BundleDiscount[]> bundlesByProduct, Map<BundleDiscount, Integer> bundleRanks, int ruleCount) {
+        this.productRules = productRules;
+        this.declaredTypeRules = declaredTypeRules;
+        this.globalRules = globalRules;
+        this.bundlesByProduct = bundlesByProduct;
+        this.bundleRanks = bundleRanks;
+        this.ruleCount = ruleCount;
+    }
+
+    public static PromotionPlan compile(Collection<? extends PromotionRule> rules) {
+        Map<UUID, List<LineRule>> byProduct = new HashMap<>();
+        Map<Class<?>, List<LineRule>> byType = new HashMap<>();
+        List<LineRule> global = new ArrayList<>();
+        Map<UUID, List<BundleDiscount>> bundles = new HashMap<>();
+        Map<BundleDiscount, Integer> bundleRanks = new HashMap<>();
+        for (PromotionRule rule : rules) {
+            if (rule instanceof LineRule line) {
+                RuleTarget target = line.getTarget();
+                if (target.getProductId() != null) {
+                    byProduct.computeIfAbsent(target.getProductId(), id -> new ArrayList<>()).add(line);
+                } else if (target.getProductType() != null) {
+                    byType.computeIfAbsent(target.getProductType(), type -> new ArrayList<>()).add(line);
+                } else {
+                    global.add(line);
+                }
+            } else if (rule instanceof BundleDiscount bundle) {
+                bundleRanks.putIfAbsent(bundle, bundleRanks.size());
+                for (UUID productId : bundle.getQuantities().keySet()) {
+                    bundles.computeIfAbsent(productId, id -> new ArrayList<>()).add(bundle);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported promotion rule " + rule.getClass().getName());
+            }
+        }
+        Map<UUID, LineRule[]> productRules = new HashMap<>();
+        byProduct.forEach((id, list) -> productRules.put(id, list.toArray(NO_LINE_RULES)));
+        Map<Class<?>, LineRule[]> typeRules = new HashMap<>();
+        byType.forEach((type, list) -> typeRules.put(type, list.toArray(NO_LINE_RULES)));
+        Map<UUID, BundleDiscount[]> bundlesByProduct = new HashMap<>();
+        bundles.forEach((id, list) -> bundlesByProduct.put(id, list.toArray(NO_BUNDLES)));
+        return new PromotionPlan(productRules, typeRules, global.toArray(NO_LINE_RULES), bundlesByProduct, bundleRanks, rules.size());
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    // Best single line-rule discount for the line, in minor units and never more than the line itself
+    long lineDiscount(Product product, long unitPrice, int quantity) {
+        long best = 0;
+        best = best(productRules.getOrDefault(product.getId(), NO_LINE_RULES), unitPrice, quantity, best);
+        best = best(typeRules.get(product.getClass()), unitPrice, quantity, best);
+        best = best(globalRules, unitPrice, quantity, best);
+        return Math.min(best, Math.multiplyExact(unitPrice, quantity));
+    }
+
+    BundleDiscount[] bundlesContaining(UUID productId) {
+        return bundlesByProduct.getOrDefault(productId, NO_BUNDLES);
+    }
+
+    int bundleRank(BundleDiscount bundle) {
+        return bundleRanks.get(bundle);
+    }
+
+    private static long best(LineRule[] rules, long unitPrice, int quantity, long best) {
+        for (LineRule rule : rules) {
+            best = Math.max(best, rule.discount(unitPrice, quantity));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.eshop.promotion;
+
+import com.example.eshop.money.Money;
+import com.example.eshop.product.Product;
+import java.util.Map;
+import java.util.UUID;
+
+public class PromotionResult {
+    private final Money subtotal;
+    private final Money lineDiscount;
+    private final Money bundleDiscount;
+    private final Money total;
+    private final Map<UUID, Money> lineDiscounts;
+
+    PromotionResult(Money subtotal, Money lineDiscount, Money bundleDiscount, Map<UUID, Money> lineDiscounts) {
+        this.subtotal = subtotal;
+        this.lineDiscount = lineDiscount;
+        this.bundleDiscount = bundleDiscount;
+        // Discounts can't take the cart below zero
+        Money discounted = subtotal.minus(lineDiscount).minus(bundleDiscount);
+        this.total = discounted.isNegative() ? Money.zero(subtotal.getCurrency()) : discounted;
+        this.lineDiscounts = lineDiscounts;
+    }
+
+    // Cart total before promotions
+    public Money getSubtotal() {
+        return subtotal;
+    }
+
+    public Money getDiscount() {
+        return subtotal.minus(total);
+    }
+
+    public Money getLineDiscount() {
+        return lineDiscount;
+    }
+
+    public Money getBundleDiscount() {
+        return bundleDiscount;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    // Discount applied to the product's line by line rules; zero if none applied
+    public Money getLineDiscount(Product product) {
+        return lineDiscounts.getOrDefault(product.getId(), Money.zero(subtotal.getCurrency()));
+    }
+}
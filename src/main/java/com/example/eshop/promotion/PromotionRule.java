@@ -0,0 +1,20 @@
+package com.example.eshop.promotion;
+
+import java.util.Objects;
+
+public abstract class PromotionRule {
+    private final String name;
+
+    protected PromotionRule(String name) {
+        this.name = Objects.requireNonNull(name, "name");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.eshop.promotion;
+
+import com.example.eshop.product.Product;
+import java.util.UUID;
+
+// Which cart lines a line rule applies to: one product, every product of a type, or everything
+public final class RuleTarget {
+    private static final RuleTarget EVERYTHING = new RuleTarget(null, null);
+
+    private final UUID productId;
+    private final Class<? extends Product> productType;
+
+    private RuleTarget(UUID productId, Class<? extends Product> productType) {
+        this.productId = productId;
+        this.productType = productType;
+    }
+
+    public static RuleTarget product(Product product) {
+        return new RuleTarget(product.getId(), null);
+    }
+
+    // Also matches subclasses of the type
+    public static RuleTarget type(Class<? extends Product> productType) {
+        return new RuleTarget(null, productType);
+    }
+
+    public static RuleTarget everything() {
+        return EVERYTHING;
+    }
+
+    UUID getProductId() {
+        return productId;
+    }
+
+    Class<? extends Product> getProductType() {
+        return productType;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.eshop.promotion;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Percentage off a line that grows with its quantity, e.g. 5% from 10 units and 10% from 50
+public class TieredDiscount extends LineRule {
+    private final NavigableMap<Integer, BigDecimal> tiers = new TreeMap<>();
+
+    /**
+     * @param percentByMinQuantity percent off for lines of at least the given quantity
+     */
+    public TieredDiscount(String name, RuleTarget target, Map<Integer, BigDecimal> percentByMinQuantity) {
+        super(name, target);
+        if (percentByMinQuantity.isEmpty()) {
+            throw new IllegalArgumentException("At least one tier is required");
+        }
+        for (Map.Entry<Integer, BigDecimal> tier : percentByMinQuantity.entrySet()) {
+            if (tier.getKey() <= 0) {
+                throw new IllegalArgumentException("Tier quantity must be greater than zero");
+            }
+            tiers.put(tier.getKey(), PercentageDiscount.fractionOf(tier.getValue()));
+        }
+    }
+
+    @Override
+    protected long discount(long unitPrice, int quantity) {
+        Map.Entry<Integer, BigDecimal> tier = tiers.floorEntry(quantity);
+        return tier == null ? 0 : PercentageDiscount.percentOf(Math.multiplyExact(unitPrice, quantity), tier.getValue());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.eshop.shipping;
+
+import com.example.eshop.money.Money;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Tiered shipping rates: per zone, a parcel costs the rate of the lightest tier whose maximum weight it
+ * doesn't exceed. Parcels heavier than a zone's heaviest tier can't be shipped there. Every added tier
+ * bumps the table's {@link #getVersion() version} so rates cached from it can be dropped.
+ */
+public class RateTable {
+    private final Currency currency;
+    private final Map<ShippingZone, NavigableMap<Double, Money>> tiers = new EnumMap<>(ShippingZone.class);
+    private volatile long version;
+
+    public RateTable() {
+        this(Money.DEFAULT_CURRENCY);
+    }
+
+    public RateTable(Currency currency) {
+        this.currency = currency;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public synchronized RateTable addTier(ShippingZone zone, double maxWeight, Money rate) {
+        if (!(maxWeight > 0)) {
+            throw new IllegalArgumentException("Tier weight must be greater than zero");
+        }
+        if (!rate.getCurrency().equals(currency)) {
+            throw new IllegalArgumentException("Rate currency " + rate.getCurrency() + " does not match table currency " + currency);
+        }
+        if (rate.isNegative()) {
+            throw new IllegalArgumentException("Rate cannot be negative");
+        }
+        tiers.computeIfAbsent(zone, z -> new TreeMap<>()).put(maxWeight, rate);
+        version++;
+        return this;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Whether every weight above lower and up to upper falls in the same tier, so they all share one rate
+    synchronized boolean isSingleTier(ShippingZone zone, double lower, double upper) {
+        NavigableMap<Double, Money> zoneTiers = tiers.get(zone);
+        return zoneTiers == null || zoneTiers.subMap(lower, false, upper, false).isEmpty();
+    }
+
+    public synchronized Money rateFor(double weight, ShippingZone zone) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight cannot be negative");
+        }
+        NavigableMap<Double, Money> zoneTiers = tiers.get(zone);
+        Map.Entry<Double, Money> tier = zoneTiers == null ? null : zoneTiers.ceilingEntry(weight);
+        if (tier == null) {
+            throw new IllegalArgumentException("No " + zone + " rate for a parcel of " + weight);
+        }
+        return tier.getValue();
+    }
+}
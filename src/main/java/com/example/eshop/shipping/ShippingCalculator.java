@@ -0,0 +1,119 @@
+package com.example.eshop.shipping;
+
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.money.Money;
+import com.example.eshop.product.PhysicalProduct;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prices shipping for a set of cart lines: the parcel weight is summed once over the physical lines and
+ * rounded up to a weight bucket, and the (bucket, zone) rate is looked up in an LRU cache in front of the
+ * {@link RateTable}, so a cart costs one cached lookup however many lines it has. Only buckets that lie
+ * within a single tier are cached; a bucket a tier boundary cuts through is rated from the parcel's own
+ * weight every time. The cache is dropped whenever a tier is added to the table. Each physical line's own
+ * {@link PhysicalProduct#getShippingCost() shipping cost} times its quantity is added on top as a handling
+ * surcharge, rounded once per line.
+ */
+public class ShippingCalculator {
+    private static final double BUCKET_SLACK = 1e-9;
+
+    private final RateTable rates;
+    private final double bucketSize;
+    private final Map<Long, Money> cache;
+    private long cachedVersion;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param bucketSize parcel weights are rounded up to a multiple of this before rating
+     * @param cacheCapacity most (bucket, zone) rates kept; the least recently used is evicted beyond that
+     */
+    public ShippingCalculator(RateTable rates, double bucketSize, int cacheCapacity) {
+        if (!(bucketSize > 0)) {
+            throw new IllegalArgumentException("Weight bucket size must be greater than zero");
+        }
+        if (cacheCapacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be greater than zero");
+        }
+        this.rates = rates;
+        this.bucketSize = bucketSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Money> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+    }
+
+    public Money quote(Collection<CartItem> items, ShippingZone zone) {
+        double weight = 0;
+        Money surcharge = Money.zero(rates.getCurrency());
+        boolean physical = false;
+        for (CartItem item : items) {
+            if (item.getProduct() instanceof PhysicalProduct product) {
+                physical = true;
+                weight += product.getWeight() * item.getQuantity();
+                if (product.getShippingCost() != null) {
+                    BigDecimal lineCost = product.getShippingCost().multiply(BigDecimal.valueOf(item.getQuantity()));
+                    surcharge = surcharge.plus(Money.of(lineCost, rates.getCurrency()));
+                }
+            }
+        }
+        if (!physical) {
+            return Money.zero(rates.getCurrency()); // Nothing to ship
+        }
+        return rateFor(weight, zone).plus(surcharge);
+    }
+
+    public Money rateFor(double weight, ShippingZone zone) {
+        // The small slack keeps summed weights like 0.1 + 0.2 from spilling into the next bucket
+        long bucket = (long) Math.ceil(weight / bucketSize - BUCKET_SLACK);
+        Long key = bucket * ShippingZone.values().length + zone.ordinal();
+        long version = rates.getVersion();
+        Money rate;
+        synchronized (cache) {
+            rate = version == cachedVersion ? cache.get(key) : null;
+        }
+        if (rate != null) {
+            hits.increment();
+            return rate;
+        }
+        misses.increment();
+        double upper = BigDecimal.valueOf(bucketSize).multiply(BigDecimal.valueOf(bucket)).doubleValue();
+        double lower = BigDecimal.valueOf(bucketSize).multiply(BigDecimal.valueOf(bucket - 1)).doubleValue();
+        if (!rates.isSingleTier(zone, lower, upper)) {
+            // A tier boundary cuts through the bucket: rate the parcel itself, capped so the slack can't tip it over
+            return rates.rateFor(Math.min(weight, upper), zone);
+        }
+        // Rated at the bucket's upper bound so every weight in the bucket gets the same price
+        rate = rates.rateFor(upper, zone);
+        synchronized (cache) {
+            if (version > cachedVersion) {
+                cache.clear();
+                cachedVersion = version;
+            }
+            if (version == cachedVersion) {
+                cache.put(key, rate);
+            }
+        }
+        return rate;
+    }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.eshop.shipping;
+
+public enum ShippingZone {
+    DOMESTIC,
+    CONTINENTAL,
+    INTERNATIONAL
+}
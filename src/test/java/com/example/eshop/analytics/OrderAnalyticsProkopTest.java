@@ -0,0 +1,101 @@
+package com.example.eshop.analytics;
+
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.money.Money;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class OrderAnalyticsProkopTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final Set<OrderStatus> CHARGED = EnumSet.of(OrderStatus.PAID, OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", new BigDecimal("19.99"), 10, BigDecimal.valueOf(2.5));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", new BigDecimal("0.10"), "http://example.com/download");
+
+    private Order order(int physicalQuantity, int digitalQuantity, OrderStatus status, LocalDateTime orderDate) {
+        List<CartItem> items = List.of(new CartItem(physical, physicalQuantity), new CartItem(digital, digitalQuantity));
+        Money total = items.get(0).getLineTotal().plus(items.get(1).getLineTotal());
+        return new Order(UUID.randomUUID(), items, total, orderDate, status);
+    }
+
+    @Test
+    void testAnalyze_ManyOrdersInParallel_MatchesSequentialDecimalSums_ProkopTest() {
+        Random random = new Random(42);
+        OrderStatus[] statuses = OrderStatus.values();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            orders.add(order(1 + random.nextInt(5), 1 + random.nextInt(9), statuses[random.nextInt(statuses.length)], START.plusMinutes(i)));
+        }
+
+        RevenueReport report = OrderAnalytics.analyze(orders);
+
+        List<Order> charged = orders.stream().filter(order -> CHARGED.contains(order.getStatus())).toList();
+        BigDecimal expectedTotal = charged.stream().map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, expectedTotal.compareTo(report.getTotalRevenue().toBigDecimal()));
+        assertEquals(20_000, report.getOrderCount());
+        long physicalUnits = charged.stream().mapToLong(order -> order.getItems().get(0).getQuantity()).sum();
+        assertEquals(physicalUnits, report.getQuantityByProduct().get(physical.getId()));
+        assertEquals(Money.of(new BigDecimal("19.99")).times(physicalUnits), report.getRevenueByProduct().get(physical.getId()));
+        for (OrderStatus status : statuses) {
+            BigDecimal expected = orders.stream().filter(order -> order.getStatus() == status)
+                    .map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertEquals(0, expected.compareTo(report.getRevenueByStatus().get(status).toBigDecimal()));
+        }
+        LocalDate firstDay = START.toLocalDate();
+        BigDecimal expectedFirstDay = charged.stream().filter(order -> order.getOrderDate().toLocalDate().equals(firstDay))
+                .map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(firstDay, report.getRevenueByDay().firstKey());
+        assertEquals(0, expectedFirstDay.compareTo(report.getRevenueByDay().get(firstDay).toBigDecimal()));
+    }
+
+    @Test
+    void testAnalyze_UnchargedOrdersAndRepricedProducts_CountedAsSold_ProkopTest() {
+        Product book = new DigitalProduct("Book", "An e-book", new BigDecimal("10.00"), "http://example.com/book");
+        List<CartItem> items = List.of(new CartItem(book, 3));
+        Order paid = new Order(UUID.randomUUID(), items, Money.of(new BigDecimal("30.00")), START, OrderStatus.PAID);
+        Order cancelled = new Order(UUID.randomUUID(), items, Money.of(new BigDecimal("30.00")), START, OrderStatus.CANCELLED);
+        Order failed = new Order(UUID.randomUUID(), items, Money.of(new BigDecimal("30.00")), START, OrderStatus.PAYMENT_FAILED);
+        book.setPrice(new BigDecimal("20.00"));
+
+        RevenueReport report = OrderAnalytics.analyze(List.of(paid, cancelled, failed));
+        assertEquals(3, report.getOrderCount());
+        assertEquals(Money.of(new BigDecimal("30.00")), report.getTotalRevenue());
+        assertEquals(Money.of(new BigDecimal("30.00")), report.getRevenueByProduct().get(book.getId()));
+        assertEquals(3, report.getQuantityByProduct().get(book.getId()));
+        assertEquals(Money.of(new BigDecimal("30.00")), report.getRevenueByDay().get(START.toLocalDate()));
+        assertEquals(Money.of(new BigDecimal("30.00")), report.getRevenueByStatus().get(OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void testAnalyze_NoOrders_EmptyReport_ProkopTest() {
+        RevenueReport report = OrderAnalytics.analyze(List.of());
+        assertEquals(0, report.getOrderCount());
+        assertEquals(Money.zero(Money.DEFAULT_CURRENCY), report.getTotalRevenue());
+        assertEquals(0, report.getRevenueByDay().size());
+    }
+
+    @Test
+    void testAnalyze_MixedCurrencies_Throws_ProkopTest() {
+        Order usd = order(1, 1, OrderStatus.PAID, START);
+        Order eur = new Order(UUID.randomUUID(), List.of(), Money.ofMinor(100, Currency.getInstance("EUR")), START, OrderStatus.PAID);
+        assertThrowsExactly(IllegalArgumentException.class, () -> OrderAnalytics.analyze(List.of(usd, eur)));
+    }
+}
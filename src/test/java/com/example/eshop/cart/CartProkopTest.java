@@ -6,10 +6,13 @@ import com.example.eshop.product.Product;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -89,7 +92,7 @@ public class CartProkopTest {
     @Test
     void testCalculateTotal_WithEmptyCart_CorrectTotal_ProkopTest() {
         Cart cart = new Cart();
-        BigDecimal expectedTotal = BigDecimal.valueOf(0);
+        BigDecimal expectedTotal = new BigDecimal("0.00");
         BigDecimal actualTotal = cart.calculateTotal();
         assertEquals(expectedTotal, actualTotal);
     }
@@ -99,7 +102,7 @@ public class CartProkopTest {
         Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
         Cart cart = new Cart();
         cart.addItem(product, 1);
-        BigDecimal expectedTotal = BigDecimal.valueOf(20.00d);
+        BigDecimal expectedTotal = new BigDecimal("20.00");
         BigDecimal actualTotal = cart.calculateTotal();
         assertEquals(expectedTotal, actualTotal);
     }
@@ -109,8 +112,118 @@ public class CartProkopTest {
         Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
         Cart cart = new Cart();
         cart.addItem(product, 2);
-        BigDecimal expectedTotal = BigDecimal.valueOf(40.00d);
+        BigDecimal expectedTotal = new BigDecimal("40.00");
         BigDecimal actualTotal = cart.calculateTotal();
         assertEquals(expectedTotal, actualTotal);
     }
+
+    @Test
+    void testAddItems_Bulk_KeepsInsertionOrder_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        Map<Product, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(physical, 2);
+        quantities.put(digital, 3);
+        Cart cart = new Cart();
+        cart.addItem(digital, 1);
+        assertDoesNotThrow(() -> cart.addItems(quantities));
+        assertEquals(2, cart.size());
+        assertEquals(digital, cart.getItems().get(0).getProduct());
+        assertEquals(4, cart.getItems().get(0).getQuantity());
+        assertEquals(physical, cart.getItems().get(1).getProduct());
+        assertEquals(2, cart.getItems().get(1).getQuantity());
+    }
+
+    @Test
+    void testAddItems_WithInvalidQuantity_LeavesCartUnchanged_Fail_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        Map<Product, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(physical, 2);
+        quantities.put(digital, 0);
+        Cart cart = new Cart();
+        assertThrowsExactly(IllegalArgumentException.class, () -> cart.addItems(quantities));
+        assertTrue(cart.isEmpty());
+    }
+
+    @Test
+    void testSetQuantity_ByProduct_Success_ProkopTest() {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Cart cart = new Cart();
+        cart.addItem(product, 2);
+        assertDoesNotThrow(() -> cart.setQuantity(product, 5));
+        assertTrue(cart.getItem(product).isPresent());
+        assertEquals(5, cart.getItem(product).get().getQuantity());
+        cart.removeItem(product);
+        assertFalse(cart.contains(product));
+        assertThrowsExactly(IllegalArgumentException.class, () -> cart.setQuantity(product, 1));
+    }
+
+    @Test
+    void testCalculateTotal_AfterQuantityChangeAndRemove_CorrectTotal_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        Cart cart = new Cart();
+        cart.addItem(physical, 1);
+        cart.addItem(digital, 1);
+        cart.getItems().getFirst().setQuantity(3);
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(cart.calculateTotal()));
+        cart.removeItem(physical);
+        assertEquals(0, BigDecimal.valueOf(10).compareTo(cart.calculateTotal()));
+        cart.clear();
+        assertEquals(0, BigDecimal.ZERO.compareTo(cart.calculateTotal()));
+    }
+
+    @Test
+    void testCalculateTotal_AfterProductRepriced_CorrectTotal_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(cart.calculateTotal()));
+        physical.setPrice(BigDecimal.valueOf(25));
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(cart.calculateTotal()));
+        cart.removeItem(physical);
+        assertEquals(0, BigDecimal.ZERO.compareTo(cart.calculateTotal()));
+    }
+
+    @Test
+    void testSnapshot_LinesFrozen_SetQuantityUnsupported_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        CartSnapshot snapshot = cart.snapshot();
+
+        assertThrowsExactly(UnsupportedOperationException.class, () -> snapshot.getItems().getFirst().setQuantity(5));
+        assertThrowsExactly(UnsupportedOperationException.class, () -> snapshot.getItems().add(new CartItem(physical, 1)));
+        physical.setPrice(BigDecimal.valueOf(25));
+        assertEquals(new BigDecimal("40.00"), snapshot.getItems().getFirst().getTotalPrice());
+        assertEquals(new BigDecimal("40.00"), snapshot.getTotal().toBigDecimal());
+    }
+
+    @Test
+    void testSnapshot_CartChangedAfterwards_SnapshotUnchanged_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        CartSnapshot snapshot = cart.snapshot();
+        assertSame(snapshot, cart.snapshot());
+
+        cart.getItems().getFirst().setQuantity(3);
+        cart.addItem(digital, 1);
+        assertEquals(new BigDecimal("70.00"), cart.calculateTotal());
+        assertEquals(1, snapshot.size());
+        assertEquals(2, snapshot.getItems().getFirst().getQuantity());
+        assertEquals(new BigDecimal("40.00"), snapshot.getTotal().toBigDecimal());
+    }
+
+    @Test
+    void testSnapshot_ThenRepriced_CartTotalUpdated_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        cart.snapshot();
+        physical.setPrice(BigDecimal.valueOf(25));
+        assertEquals(new BigDecimal("50.00"), cart.calculateTotal());
+    }
 }
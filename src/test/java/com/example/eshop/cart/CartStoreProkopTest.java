@@ -0,0 +1,216 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import com.example.eshop.product.ProductCatalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CartStoreProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+    private final ProductCatalog catalog = new ProductCatalog();
+    private final AtomicLong now = new AtomicLong();
+
+    @TempDir
+    Path directory;
+
+    CartStoreProkopTest() {
+        catalog.addAll(List.of(physical, digital));
+    }
+
+    private CartStore store(int maxCarts) throws IOException {
+        return new CartStore(directory.resolve("carts.spill"), id -> catalog.findById(id).orElse(null), maxCarts, Duration.ofMinutes(30), 1, now::get);
+    }
+
+    private static void add(CartStore store, String sessionId, Product product, int quantity) {
+        try (CartStore.Lease lease = store.getOrCreate(sessionId)) {
+            lease.getCart().addItem(product, quantity);
+        }
+    }
+
+    private static Cart cartOf(CartStore store, String sessionId) {
+        try (CartStore.Lease lease = store.get(sessionId).orElseThrow()) {
+            return lease.getCart();
+        }
+    }
+
+    @Test
+    void testGetOrCreate_SameSession_ReturnsSameCart_ProkopTest() throws IOException {
+        try (CartStore store = store(10)) {
+            Cart cart;
+            try (CartStore.Lease lease = store.getOrCreate("session-1")) {
+                cart = lease.getCart();
+                cart.addItem(physical, 2);
+            }
+
+            try (CartStore.Lease lease = store.getOrCreate("session-1")) {
+                assertSame(cart, lease.getCart());
+            }
+            assertSame(cart, cartOf(store, "session-1"));
+            assertTrue(store.get("session-2").isEmpty());
+            assertEquals(1, store.residentCount());
+        }
+    }
+
+    @Test
+    void testGetOrCreate_OverLimit_SpillsUnreferencedCart_ProkopTest() throws IOException {
+        try (CartStore store = store(2)) {
+            add(store, "a", physical, 2);
+            add(store, "b", digital, 1);
+            // Both reference bits are set; the sweep clears them and spills the first cart it comes back to
+            Cart c;
+            try (CartStore.Lease lease = store.getOrCreate("c")) {
+                c = lease.getCart();
+            }
+
+            assertEquals(2, store.residentCount());
+            assertEquals(1, store.spilledCount());
+            assertSame(c, cartOf(store, "c"));
+        }
+    }
+
+    @Test
+    void testGetOrCreate_OverLimitWhileLeased_LeasedCartNotSpilled_ProkopTest() throws IOException {
+        try (CartStore store = store(1)) {
+            CartStore.Lease held = store.getOrCreate("a");
+            held.getCart().addItem(physical, 1);
+            add(store, "b", digital, 1);
+
+            // "a" is still being used, so the shard holds both carts for now
+            assertEquals(2, store.residentCount());
+            assertEquals(0, store.spilledCount());
+            held.getCart().addItem(physical, 1);
+            held.close();
+            held.close();
+            assertThrowsExactly(IllegalStateException.class, held::getCart);
+
+            add(store, "c", digital, 1);
+            assertEquals(2, cartOf(store, "a").getItem(physical).orElseThrow().getQuantity());
+        }
+    }
+
+    @Test
+    void testGet_SpilledCart_ReloadsItemsLazily_ProkopTest() throws IOException {
+        try (CartStore store = store(1)) {
+            Cart original;
+            try (CartStore.Lease lease = store.getOrCreate("a")) {
+                original = lease.getCart();
+                original.addItem(physical, 2);
+                original.addItem(digital, 3);
+            }
+            store.getOrCreate("b").close();
+            assertEquals(1, store.spilledCount());
+
+            Cart reloaded = cartOf(store, "a");
+
+            assertNotSame(original, reloaded);
+            assertEquals(2, reloaded.size());
+            assertEquals(2, reloaded.getItem(physical).orElseThrow().getQuantity());
+            assertEquals(3, reloaded.getItem(digital).orElseThrow().getQuantity());
+            assertEquals(original.getTotal(), reloaded.getTotal());
+            // "b" was spilled to make room, so "a" is the only spilled cart that was loaded back
+            assertEquals(1, store.spilledCount());
+        }
+    }
+
+    @Test
+    void testEvictIdle_OnlyIdleCartsAreSpilled_ProkopTest() throws IOException {
+        try (CartStore store = store(10)) {
+            add(store, "idle", physical, 1);
+            now.addAndGet(Duration.ofMinutes(20).toNanos());
+            add(store, "active", digital, 1);
+            now.addAndGet(Duration.ofMinutes(20).toNanos());
+
+            assertEquals(1, store.evictIdle());
+            assertEquals(1, store.residentCount());
+            assertEquals(1, store.spilledCount());
+            assertEquals(1, cartOf(store, "idle").getItem(physical).orElseThrow().getQuantity());
+            assertEquals(0, store.spilledCount());
+        }
+    }
+
+    @Test
+    void testExpireSpilled_OldSessionsDroppedAndFileCompacted_ProkopTest() throws IOException {
+        try (CartStore store = store(10)) {
+            add(store, "old-1", physical, 1);
+            add(store, "kept", digital, 1);
+            add(store, "old-2", physical, 2);
+            now.addAndGet(Duration.ofMinutes(40).toNanos());
+            store.getOrCreate("kept").close();
+            now.addAndGet(Duration.ofMinutes(40).toNanos());
+            assertEquals(3, store.evictIdle());
+            long spilledSize = store.spillFileSize();
+
+            // The default spilled timeout is days away: nothing expires yet
+            assertEquals(0, store.expireSpilled());
+            now.addAndGet(Duration.ofDays(7).toNanos() - Duration.ofMinutes(60).toNanos());
+            assertEquals(2, store.expireSpilled());
+
+            assertTrue(store.get("old-1").isEmpty());
+            assertEquals(1, store.spilledCount());
+            // Two of the three records were dead, so the kept one was moved to the front and the rest cut off
+            assertTrue(store.spillFileSize() < spilledSize / 2);
+            assertEquals(1, cartOf(store, "kept").getItem(digital).orElseThrow().getQuantity());
+        }
+    }
+
+    @Test
+    void testRemove_DropsResidentAndSpilledCarts_ProkopTest() throws IOException {
+        Path spillFile = directory.resolve("carts.spill");
+        try (CartStore store = store(1)) {
+            add(store, "a", physical, 1);
+            add(store, "b", digital, 1);
+            assertTrue(Files.size(spillFile) > 0);
+
+            store.remove("a");
+            store.remove("b");
+
+            assertTrue(store.get("a").isEmpty());
+            assertTrue(store.get("b").isEmpty());
+            assertEquals(0, store.spilledCount());
+            assertEquals(0, Files.size(spillFile));
+        }
+        assertFalse(Files.exists(spillFile));
+    }
+
+    @Test
+    void testGet_SpilledProductRemovedFromCatalog_DropsLine_ProkopTest() throws IOException {
+        try (CartStore store = store(1)) {
+            add(store, "a", physical, 1);
+            add(store, "a", digital, 1);
+            store.getOrCreate("b").close();
+            catalog.remove(digital);
+
+            Cart reloaded = cartOf(store, "a");
+
+            assertEquals(1, reloaded.size());
+            assertFalse(reloaded.contains(digital));
+        }
+    }
+
+    @Test
+    void testConstructor_ShardCountNotPowerOfTwo_ThrowsException_ProkopTest() {
+        Path spillFile = directory.resolve("carts.spill");
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new CartStore(spillFile, id -> null, 10, Duration.ofMinutes(1), 3, now::get));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new CartStore(spillFile, id -> null, 10, Duration.ZERO, 1, now::get));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.money.Money;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderService;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.payment.CreditCardPaymentProcessor;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactCartProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+
+    @Test
+    void testAddItem_SameProductTwice_MergesLine_ProkopTest() {
+        CompactCart cart = new CompactCart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+        cart.addItem(physical, 3);
+
+        assertEquals(2, cart.size());
+        assertEquals(physical, cart.getItems().get(0).getProduct());
+        assertEquals(5, cart.getItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("110.00"), cart.calculateTotal());
+        assertThrowsExactly(IllegalArgumentException.class, () -> cart.addItem(digital, -1));
+    }
+
+    @Test
+    void testRemoveItem_KeepsInsertionOrderAndTotal_ProkopTest() {
+        CompactCart cart = new CompactCart(2);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Product product = new DigitalProduct("Product " + i, "An example digital product", BigDecimal.valueOf(i + 1), "http://example.com/download");
+            products.add(product);
+            cart.addItem(product, 1);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            cart.removeItem(products.get(i));
+        }
+
+        assertEquals(50, cart.size());
+        assertEquals(products.get(1), cart.getItems().getFirst().getProduct());
+        assertEquals(products.get(99), cart.getItems().getLast().getProduct());
+        assertFalse(cart.contains(products.get(0)));
+        assertTrue(cart.contains(products.get(51)));
+        // Lines 2, 4, ..., 100 remain: 2 * (1 + 2 + ... + 50)
+        assertEquals(Money.of(BigDecimal.valueOf(2550)), cart.getTotal());
+    }
+
+    @Test
+    void testRemoveItem_ManyRemovalsAndReAdds_LookupsAndOrderStayConsistent_ProkopTest() {
+        ShoppingCart cart = new CompactCart();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Product product = new DigitalProduct("Product " + i, "An example digital product", BigDecimal.ONE, "http://example.com/download");
+            products.add(product);
+            cart.addItem(product, 1);
+        }
+        for (int i = 0; i < 999; i++) {
+            cart.removeItem(products.get(i));
+        }
+        cart.addItem(products.get(0), 2);
+        cart.addItem(products.get(999), 1);
+
+        assertEquals(2, cart.size());
+        assertEquals(products.get(999), cart.getItems().getFirst().getProduct());
+        assertEquals(2, cart.getItems().getFirst().getQuantity());
+        assertEquals(products.get(0), cart.getItems().getLast().getProduct());
+        assertFalse(cart.contains(products.get(500)));
+        assertEquals(Money.of(new BigDecimal("4.00")), cart.getTotal());
+        assertEquals(2, cart.snapshot().size());
+    }
+
+    @Test
+    void testAddItem_IndexGrowsWhileGapOpen_KeepsEveryLine_ProkopTest() {
+        ShoppingCart cart = new CompactCart();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 17; i++) {
+            products.add(new DigitalProduct("Product " + i, "An example digital product", BigDecimal.ONE, "http://example.com/download"));
+        }
+        for (int i = 0; i < 16; i++) {
+            cart.addItem(products.get(i), 1);
+        }
+        cart.removeItem(products.get(3));
+        // The 17th line takes the index past half full with the gap still open
+        cart.addItem(products.get(16), 1);
+
+        assertEquals(16, cart.size());
+        assertFalse(cart.contains(products.get(3)));
+        for (int i = 0; i < 17; i++) {
+            assertEquals(i != 3, cart.contains(products.get(i)));
+        }
+        assertEquals(products.get(16), cart.getItems().getLast().getProduct());
+        assertEquals(Money.of(new BigDecimal("16.00")), cart.getTotal());
+    }
+
+    @Test
+    void testItemView_SetQuantity_WritesThroughUntilCleared_ProkopTest() {
+        CompactCart cart = new CompactCart();
+        cart.addItem(physical, 1);
+        CartItem view = cart.getItem(physical).orElseThrow();
+        view.setQuantity(3);
+        assertEquals(new BigDecimal("60.00"), cart.calculateTotal());
+        assertThrowsExactly(IllegalArgumentException.class, () -> view.setQuantity(0));
+
+        cart.clear();
+        cart.addItem(physical, 1);
+        view.setQuantity(7);
+        assertEquals(1, cart.getItem(physical).orElseThrow().getQuantity());
+        assertEquals(7, view.getQuantity());
+    }
+
+    @Test
+    void testGetTotal_AfterRepricing_ReflectsNewPrice_ProkopTest() {
+        CompactCart cart = new CompactCart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+        assertEquals(new BigDecimal("50.00"), cart.calculateTotal());
+
+        physical.setPrice(new BigDecimal("25.00"));
+        assertEquals(new BigDecimal("60.00"), cart.calculateTotal());
+        assertEquals(new BigDecimal("50.00"), cart.getItems().getFirst().getTotalPrice());
+    }
+
+    @Test
+    void testSetQuantity_ProductNotInCart_Throws_ProkopTest() {
+        CompactCart cart = new CompactCart();
+        cart.addItem(physical, 1);
+        assertThrowsExactly(IllegalArgumentException.class, () -> cart.setQuantity(digital, 1));
+        assertTrue(cart.getItem(digital).isEmpty());
+    }
+
+    @Test
+    void testPlaceOrder_FromCompactCart_OrderKeepsItemsAfterClear_ProkopTest() {
+        CompactCart cart = new CompactCart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+
+        Order order = new OrderService(new CreditCardPaymentProcessor()).placeOrder(cart);
+        assertTrue(cart.isEmpty());
+        assertEquals(OrderStatus.PAID, order.getStatus());
+        assertEquals(2, order.getItems().size());
+        assertEquals(2, order.getItems().getFirst().getQuantity());
+        assertEquals(new BigDecimal("50.00"), order.getTotalAmount());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.eshop.cart;
+
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderService;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.payment.CreditCardPaymentProcessor;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentCartProkopTest {
+    @Test
+    void testIncrementQuantity_FromManyThreads_NoLostUpdates_ProkopTest() throws InterruptedException {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        ConcurrentCart cart = new ConcurrentCart();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < 1000; j++) {
+                    cart.incrementQuantity(product, 1);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8000, cart.getQuantity(product));
+        assertEquals(0, new BigDecimal("160000").compareTo(cart.calculateTotal()));
+    }
+
+    @Test
+    void testSnapshot_KeepsInsertionOrder_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        ConcurrentCart cart = new ConcurrentCart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+        cart.incrementQuantity(physical, 1);
+        List<CartItem> items = cart.snapshot().getItems();
+        assertEquals(physical, items.get(0).getProduct());
+        assertEquals(3, items.get(0).getQuantity());
+        assertEquals(digital, items.get(1).getProduct());
+        assertThrowsExactly(IllegalArgumentException.class, () -> cart.incrementQuantity(digital, -1));
+        assertEquals(1, cart.getQuantity(digital));
+    }
+
+    @Test
+    void testPlaceOrder_KeepsItemsAddedAfterSnapshot_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        ConcurrentCart cart = new ConcurrentCart();
+        cart.addItem(physical, 2);
+        OrderService orderService = new OrderService(amount -> {
+            // Another device adds to the cart while payment is running
+            cart.addItem(digital, 1);
+            cart.incrementQuantity(physical, 1);
+            return true;
+        });
+        Order order = orderService.placeOrder(cart);
+        assertEquals(OrderStatus.PAID, order.getStatus());
+        assertEquals(2, order.getItems().getFirst().getQuantity());
+        assertEquals(1, cart.getQuantity(physical));
+        assertEquals(1, cart.getQuantity(digital));
+        orderService = new OrderService(new CreditCardPaymentProcessor());
+        orderService.placeOrder(cart);
+        assertTrue(cart.isEmpty());
+    }
+
+    @Test
+    void testSnapshot_UnderConstantWrites_Completes_ProkopTest() throws InterruptedException {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        ConcurrentCart cart = new ConcurrentCart();
+        cart.addItem(physical, 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                while (running.get()) {
+                    cart.incrementQuantity(physical, 1);
+                }
+            }));
+        }
+        try {
+            assertTimeout(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < 200; i++) {
+                    int quantity = cart.snapshot().getItems().getFirst().getQuantity();
+                    assertTrue(cart.getTotal().getMinorUnits() >= 2000L * quantity);
+                    assertEquals(1, cart.getItems().size());
+                }
+            });
+        } finally {
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        assertEquals(2000L * cart.getQuantity(physical), cart.getTotal().getMinorUnits());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.eshop.codec;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.money.Money;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import com.example.eshop.product.ProductCatalog;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class BinaryCodecProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+    private final ProductCatalog catalog = new ProductCatalog();
+    private final BinaryCodec codec = new BinaryCodec(id -> catalog.findById(id).orElse(null));
+
+    BinaryCodecProkopTest() {
+        catalog.addAll(List.of(physical, digital));
+    }
+
+    @Test
+    void testProduct_RoundTrip_KeepsIdAndFields_ProkopTest() {
+        PhysicalProduct heavy = new PhysicalProduct("Ž📦 crate", null, new BigDecimal("-1234.50"), 12.75, new BigDecimal("-0.0625"));
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.writeProduct(buffer, heavy);
+        codec.writeProduct(buffer, digital);
+        buffer.flip();
+
+        PhysicalProduct decodedHeavy = assertInstanceOf(PhysicalProduct.class, codec.readProduct(buffer));
+        DigitalProduct decodedDigital = assertInstanceOf(DigitalProduct.class, codec.readProduct(buffer));
+
+        assertEquals(heavy.getId(), decodedHeavy.getId());
+        assertEquals("Ž📦 crate", decodedHeavy.getName());
+        assertNull(decodedHeavy.getDescription());
+        assertEquals(new BigDecimal("-1234.50"), decodedHeavy.getPrice());
+        assertEquals(12.75, decodedHeavy.getWeight());
+        assertEquals(new BigDecimal("-0.0625"), decodedHeavy.getShippingCost());
+        assertEquals(digital.getId(), decodedDigital.getId());
+        assertEquals("http://example.com/download", decodedDigital.getDownloadUrl());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void testOrder_RoundTrip_KeepsStatusTotalAndLines_ProkopTest() {
+        Cart cart = new Cart();
+        cart.addItem(physical, 300);
+        cart.addItem(digital, 1);
+        Order order = new Order(cart);
+        order.setStatus(OrderStatus.PAID);
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.maxOrderSize(order.getItems().size()));
+        codec.writeOrder(buffer, order);
+        buffer.flip();
+
+        Order decoded = codec.readOrder(buffer);
+
+        assertEquals(order.getId(), decoded.getId());
+        assertEquals(order.getOrderDate(), decoded.getOrderDate());
+        assertEquals(OrderStatus.PAID, decoded.getStatus());
+        assertEquals(order.getTotal(), decoded.getTotal());
+        assertEquals(physical, decoded.getItems().get(0).getProduct());
+        assertEquals(300, decoded.getItems().get(0).getQuantity());
+        assertEquals(digital, decoded.getItems().get(1).getProduct());
+    }
+
+    @Test
+    void testOrder_RoundTripAfterPriceChange_KeepsPricesItWasSoldFor_ProkopTest() {
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+        Order order = new Order(cart);
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.maxOrderSize(order.getItems().size()));
+        codec.writeOrder(buffer, order);
+        buffer.flip();
+        physical.setPrice(new BigDecimal("25.00"));
+
+        Order decoded = codec.readOrder(buffer);
+
+        assertEquals(Money.of(new BigDecimal("20.00")), decoded.getItems().get(0).getUnitPrice());
+        assertEquals(Money.of(new BigDecimal("40.00")), decoded.getItems().get(0).getLineTotal());
+        assertEquals(Money.of(new BigDecimal("10.00")), decoded.getItems().get(1).getUnitPrice());
+    }
+
+    @Test
+    void testReadOrder_UnknownStatusOrdinal_Refused_ProkopTest() {
+        Cart cart = new Cart();
+        cart.addItem(digital, 1);
+        Order order = new Order(cart);
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.maxOrderSize(order.getItems().size()));
+        codec.writeOrder(buffer, order);
+        // A status a newer writer appended, which this reader can't know the meaning of
+        buffer.put(statusPosition(buffer), (byte) 100);
+        buffer.flip();
+
+        assertThrowsExactly(IllegalStateException.class, () -> codec.readOrder(buffer));
+    }
+
+    // Skips the header, id and the two date varints of an order record
+    private static int statusPosition(ByteBuffer buffer) {
+        int position = BinaryCodec.HEADER_SIZE + Long.BYTES * 2;
+        for (int varints = 0; varints < 2; position++) {
+            if (buffer.get(position) >= 0) {
+                varints++;
+            }
+        }
+        return position;
+    }
+
+    @Test
+    void testCart_RoundTrip_DropsUnknownProducts_ProkopTest() {
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 3);
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.maxCartSize(cart.size()));
+        codec.writeCart(buffer, cart);
+        buffer.flip();
+        catalog.remove(digital);
+
+        Cart decoded = codec.readCart(buffer);
+
+        assertEquals(1, decoded.size());
+        assertEquals(2, decoded.getItem(physical).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void testItem_SmallQuantity_EncodesInOneVarintByte_ProkopTest() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        codec.writeItem(buffer, new CartItem(physical, 127));
+
+        assertEquals(BinaryCodec.HEADER_SIZE + 16 + 1, buffer.position());
+        CartItem decoded = codec.readItem(buffer.flip());
+        assertEquals(127, decoded.getQuantity());
+    }
+
+    @Test
+    void testReadItem_NewerRecordWithExtraFields_SkipsThem_ProkopTest() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        codec.writeItem(buffer, new CartItem(digital, 4));
+        // A newer writer appended a field: bump the version and the body length accordingly
+        buffer.putLong(42L);
+        buffer.put(0, (byte) (BinaryCodec.SCHEMA_VERSION + 1));
+        buffer.putInt(2, buffer.getInt(2) + Long.BYTES);
+        codec.writeItem(buffer, new CartItem(physical, 1));
+        buffer.flip();
+
+        assertEquals(4, codec.readItem(buffer).getQuantity());
+        assertEquals(physical, codec.readItem(buffer).getProduct());
+    }
+
+    @Test
+    void testSkip_RecordOfAnyType_MovesToNextRecord_ProkopTest() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.writeProduct(buffer, physical);
+        codec.writeItem(buffer, new CartItem(digital, 2));
+        buffer.flip();
+
+        assertThrowsExactly(IllegalStateException.class, () -> codec.readItem(buffer.duplicate()));
+        BinaryCodec.skip(buffer);
+        assertEquals(2, codec.readItem(buffer).getQuantity());
+        assertFalse(buffer.hasRemaining());
+    }
+}
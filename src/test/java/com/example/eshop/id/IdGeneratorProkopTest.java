@@ -0,0 +1,62 @@
+package com.example.eshop.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdGeneratorProkopTest {
+    @Test
+    void testNextId_IsVersion7WithTimestamp_ProkopTest() {
+        UUID id = new TimeOrderedIdGenerator(() -> 1_700_000_000_000L).nextId();
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(1_700_000_000_000L, TimeOrderedIdGenerator.timestampMillis(id));
+    }
+
+    @Test
+    void testNextId_WithinSameMillisecondAndClockStepBack_StrictlyIncreasing_ProkopTest() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get);
+        UUID previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-1_000);
+            }
+            UUID next = generator.nextId();
+            assertTrue(next.compareTo(previous) > 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testNextId_FromManyThreads_Unique_ProkopTest() throws InterruptedException {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    void testTimestampMillis_WithRandomUuid_Fail_ProkopTest() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> TimeOrderedIdGenerator.timestampMillis(UUID.randomUUID()));
+    }
+}
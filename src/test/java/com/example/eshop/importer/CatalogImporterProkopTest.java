@@ -0,0 +1,137 @@
+package com.example.eshop.importer;
+
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import com.example.eshop.product.ProductCatalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CatalogImporterProkopTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testImportFeed_CsvAcrossManySmallChunks_ImportsEveryLine_ProkopTest() throws IOException {
+        StringBuilder csv = new StringBuilder("type,id,name,description,price,weight,shipping_cost,download_url\n");
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                csv.append("physical,,Crate ").append(i).append(",\"Sturdy, wooden\",").append(i).append(".50,2.5,1.25,\r\n");
+            } else {
+                csv.append("digital,,E-book ").append(i).append(",,9.99,,,http://example.com/").append(i).append('\n');
+            }
+        }
+        Path feed = Files.writeString(directory.resolve("products.csv"), csv);
+        ProductCatalog catalog = new ProductCatalog();
+
+        // Chunks far smaller than a line force most lines to straddle chunk boundaries
+        ImportResult result = new CatalogImporter(catalog, 4, 7, 13).importFeed(feed);
+
+        assertEquals(1000, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(1000, catalog.size());
+        assertEquals(500, catalog.findByType(PhysicalProduct.class).size());
+        PhysicalProduct crate = (PhysicalProduct) catalog.findByNamePrefix("Crate 998").getFirst();
+        assertEquals("Sturdy, wooden", crate.getDescription());
+        assertEquals(new BigDecimal("998.50"), crate.getPrice());
+        assertEquals(new BigDecimal("1.25"), crate.getShippingCost());
+        DigitalProduct ebook = (DigitalProduct) catalog.findByNamePrefix("E-book 1").getFirst();
+        assertEquals("http://example.com/1", ebook.getDownloadUrl());
+    }
+
+    @Test
+    void testImportFeed_Ndjson_KeepsIdsAndDecodesEscapes_ProkopTest() throws IOException {
+        UUID id = UUID.randomUUID();
+        Path feed = Files.writeString(directory.resolve("products.ndjson"), String.join("\n",
+                "{\"type\": \"physical\", \"id\": \"" + id + "\", \"name\": \"Mug \\\"XL\\\" \\u00e9\\ud83d\\ude00\", \"price\": 12.5, \"weight\": 0.4, \"color\": \"red\", \"gift\": true}",
+                "{\"type\":\"digital\",\"name\":\"Song\",\"description\":null,\"price\":\"1E+1\",\"download_url\":\"http:\\/\\/example.com\"}",
+                ""));
+        ProductCatalog catalog = new ProductCatalog();
+
+        ImportResult result = new CatalogImporter(catalog).importFeed(feed);
+
+        assertEquals(2, result.getImported());
+        PhysicalProduct mug = assertInstanceOf(PhysicalProduct.class, catalog.findById(id).orElseThrow());
+        assertEquals("Mug \"XL\" é😀", mug.getName());
+        assertEquals(new BigDecimal("12.5"), mug.getPrice());
+        assertEquals(0.4, mug.getWeight());
+        DigitalProduct song = (DigitalProduct) catalog.findByNamePrefix("Song").getFirst();
+        assertNull(song.getDescription());
+        assertEquals(0, new BigDecimal("10").compareTo(song.getPrice()));
+        assertEquals("http://example.com", song.getDownloadUrl());
+    }
+
+    @Test
+    void testImportFeed_MalformedLines_AreRejectedAndReported_ProkopTest() throws IOException {
+        String good = "digital,,Song,,1.00,,,http://example.com\n";
+        String lines = good + "gadget,,Thing,,1.00,,,\n" + "physical,,No price,,,1,,\n" + "digital,,\"Unterminated,,1.00\n"
+                + "digital,,Priceless,,1e30,,,\n" + good;
+        Path feed = Files.writeString(directory.resolve("products.csv"), lines);
+        List<Long> rejectedOffsets = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong lastBytes = new AtomicLong();
+        ImportProgressListener listener = new ImportProgressListener() {
+            @Override
+            public void progress(long imported, long rejected, long bytesParsed, long totalBytes) {
+                lastBytes.set(bytesParsed);
+            }
+
+            @Override
+            public void rejected(long offset, String reason) {
+                rejectedOffsets.add(offset);
+            }
+        };
+
+        ImportResult result = new CatalogImporter(new ProductCatalog(), 2, 1, 32).importFeed(feed, FeedFormat.CSV, listener);
+
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getRejected());
+        assertTrue(rejectedOffsets.contains((long) good.length()));
+        assertEquals(4, rejectedOffsets.size());
+        assertTrue(lastBytes.get() > 0);
+        assertEquals(lines.length(), result.getBytes());
+    }
+
+    @Test
+    void testImportFeed_CatalogRejectsBatch_ThrowsWithoutHanging_ProkopTest() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            csv.append("digital,,Song ").append(i).append(",,1.00,,,\n");
+        }
+        Path feed = Files.writeString(directory.resolve("products.csv"), csv);
+        ProductCatalog rejecting = new ProductCatalog() {
+            @Override
+            public int addAll(Collection<? extends Product> products) {
+                throw new IllegalArgumentException("Catalog refuses the batch");
+            }
+        };
+
+        // One-product batches fill the two-batch queue at once, so the parser is blocked when the first batch fails
+        CatalogImporter importer = new CatalogImporter(rejecting, 1, 1, 64);
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> importer.importFeed(feed));
+        assertEquals(0, rejecting.size());
+    }
+
+    @Test
+    void testFormatOf_UnknownExtension_ThrowsException_ProkopTest() {
+        assertEquals(FeedFormat.NDJSON, FeedFormat.of(Path.of("feed.jsonl")));
+        assertThrowsExactly(IllegalArgumentException.class, () -> FeedFormat.of(Path.of("feed.xml")));
+    }
+}
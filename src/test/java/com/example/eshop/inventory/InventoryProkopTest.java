@@ -0,0 +1,158 @@
+package com.example.eshop.inventory;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderService;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.payment.CreditCardPaymentProcessor;
+import com.example.eshop.payment.PaymentProcessor;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InventoryProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Product other = new PhysicalProduct("Other Physical Product", "Another physical product", BigDecimal.valueOf(5.00d), 10, BigDecimal.valueOf(1.0));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+
+    @Test
+    void testReserve_WhenOneItemShort_ReservesNothing_ProkopTest() {
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 5);
+        inventory.addStock(other, 1);
+
+        assertFalse(inventory.reserve(List.of(new CartItem(physical, 3), new CartItem(other, 2))));
+        assertEquals(5, inventory.getAvailable(physical));
+        assertEquals(1, inventory.getAvailable(other));
+        assertEquals(0, inventory.getReserved(physical));
+    }
+
+    @Test
+    void testReserve_UntrackedProduct_Unlimited_ProkopTest() {
+        Inventory inventory = new Inventory();
+        assertTrue(inventory.reserve(List.of(new CartItem(digital, 1_000_000))));
+        assertFalse(inventory.isTracked(digital));
+        assertEquals(Long.MAX_VALUE, inventory.getAvailable(digital));
+    }
+
+    @Test
+    void testAddStock_NonPositive_Throws_ProkopTest() {
+        Inventory inventory = new Inventory();
+        assertThrowsExactly(IllegalArgumentException.class, () -> inventory.addStock(physical, 0));
+    }
+
+    @Test
+    void testReserve_ConcurrentCheckouts_NeverOversells_ProkopTest() throws Exception {
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 1000);
+        inventory.addStock(other, 1000);
+        AtomicInteger reserved = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            boolean reversed = t % 2 == 0;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; i++) {
+                    List<CartItem> items = reversed
+                            ? List.of(new CartItem(other, 1), new CartItem(physical, 3))
+                            : List.of(new CartItem(physical, 3), new CartItem(other, 1));
+                    if (inventory.reserve(items)) {
+                        reserved.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // 1000 units cover 333 reservations of 3, and nothing may be left that another one could have used
+        assertEquals(333, reserved.get());
+        assertEquals(1, inventory.getAvailable(physical));
+        assertEquals(999, inventory.getReserved(physical));
+        assertEquals(1000 - 333, inventory.getAvailable(other));
+    }
+
+    @Test
+    void testPlaceOrder_WithoutStock_FailsAndKeepsCart_ProkopTest() {
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 1);
+        OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+        orderService.setInventory(inventory);
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+
+        assertThrowsExactly(IllegalStateException.class, () -> orderService.placeOrder(cart));
+        assertFalse(cart.isEmpty());
+        assertEquals(1, inventory.getAvailable(physical));
+    }
+
+    @Test
+    void testOrderLifecycle_CancelReleasesAndShipCommits_ProkopTest() {
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 10);
+        OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+        orderService.setInventory(inventory);
+
+        Cart first = new Cart();
+        first.addItem(physical, 4);
+        Order shipped = orderService.placeOrder(first);
+        Cart second = new Cart();
+        second.addItem(physical, 3);
+        Order cancelled = orderService.placeOrder(second);
+        assertEquals(3, inventory.getAvailable(physical));
+        assertEquals(7, inventory.getReserved(physical));
+
+        cancelled.setStatus(OrderStatus.CANCELLED);
+        shipped.setStatus(OrderStatus.SHIPPED);
+        assertEquals(6, inventory.getAvailable(physical));
+        assertEquals(0, inventory.getReserved(physical));
+    }
+
+    @Test
+    void testPlaceOrder_DeclinedPayment_ReleasesStock_ProkopTest() {
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 2);
+        PaymentProcessor declining = amount -> false;
+        OrderService orderService = new OrderService(declining);
+        orderService.setInventory(inventory);
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+
+        assertEquals(OrderStatus.CANCELLED, orderService.placeOrder(cart).getStatus());
+        assertEquals(2, inventory.getAvailable(physical));
+    }
+
+    @Test
+    void testCancel_ProductStockedAfterOrdering_ReleasesOnlyWhatOrderTook_ProkopTest() {
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 10);
+        OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+        orderService.setInventory(inventory);
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        cart.addItem(other, 3);
+        Order order = orderService.placeOrder(cart);
+
+        // Stocked only after the order reserved: the order never took any of these units
+        inventory.addStock(other, 5);
+        order.setStatus(OrderStatus.CANCELLED);
+        assertEquals(10, inventory.getAvailable(physical));
+        assertEquals(5, inventory.getAvailable(other));
+        assertEquals(0, inventory.getReserved(other));
+
+        // A settled reservation isn't released twice
+        inventory.statusChanged(order, OrderStatus.PAID, OrderStatus.CANCELLED);
+        assertEquals(10, inventory.getAvailable(physical));
+    }
+}
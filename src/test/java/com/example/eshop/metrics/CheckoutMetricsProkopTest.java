@@ -0,0 +1,105 @@
+package com.example.eshop.metrics;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderService;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.payment.CreditCardPaymentProcessor;
+import com.example.eshop.payment.PaymentProcessor;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckoutMetricsProkopTest {
+    private final Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+
+    @AfterEach
+    void disableMetrics() {
+        Metrics.disable();
+    }
+
+    private Order placeOrder(PaymentProcessor paymentProcessor) {
+        Cart cart = new Cart();
+        cart.addItem(product, 1);
+        return new OrderService(paymentProcessor).placeOrder(cart);
+    }
+
+    @Test
+    void testHistogram_UniformValues_PercentilesWithinBucketPrecision_ProkopTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_500, snapshot.getMean(), 1);
+        long median = snapshot.getValueAtPercentile(50);
+        assertTrue(Math.abs(median - 50_000_000) <= 50_000_000 / 32, "median " + median);
+        long p99 = snapshot.getValueAtPercentile(99);
+        assertTrue(Math.abs(p99 - 99_000_000) <= 99_000_000 / 32, "p99 " + p99);
+        assertEquals(100_000_000, snapshot.getValueAtPercentile(100));
+        assertThrowsExactly(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(101));
+    }
+
+    @Test
+    void testHistogram_BucketBounds_ContainEveryValue_ProkopTest() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(bucket), "value " + value);
+            assertTrue(bucket == 0 || value > LatencyHistogram.upperBoundOf(bucket - 1), "value " + value);
+        }
+    }
+
+    @Test
+    void testPlaceOrder_MetricsEnabled_CountsAndTimesCheckout_ProkopTest() {
+        CheckoutMetrics metrics = Metrics.enable();
+        placeOrder(new CreditCardPaymentProcessor());
+        placeOrder(new CreditCardPaymentProcessor());
+        placeOrder(amount -> false);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(3, snapshot.getOrdersPlaced());
+        assertEquals(2, snapshot.getOrdersPaid());
+        assertEquals(1, snapshot.getOrdersCancelled());
+        assertEquals(3, snapshot.getCheckoutLatency().getCount());
+        assertEquals(3, snapshot.getPaymentLatency().getCount());
+    }
+
+    @Test
+    void testStatusChange_AfterCheckout_Counted_ProkopTest() {
+        CheckoutMetrics metrics = Metrics.enable();
+        Order order = placeOrder(new CreditCardPaymentProcessor());
+        order.setStatus(OrderStatus.CANCELLED);
+        assertEquals(1, metrics.snapshot().getOrdersCancelled());
+    }
+
+    @Test
+    void testCartTotal_AfterRepricing_RecordsRepriceLatency_ProkopTest() {
+        Cart cart = new Cart();
+        cart.addItem(product, 2);
+        CheckoutMetrics metrics = Metrics.enable();
+        cart.calculateTotal();
+        product.setPrice(BigDecimal.valueOf(25));
+        assertEquals(new BigDecimal("50.00"), cart.calculateTotal());
+        assertEquals(1, metrics.snapshot().getCartRepriceLatency().getCount());
+    }
+
+    @Test
+    void testPlaceOrder_MetricsDisabled_RecordsNothing_ProkopTest() {
+        placeOrder(new CreditCardPaymentProcessor());
+        MetricsSnapshot snapshot = CheckoutMetrics.DISABLED.snapshot();
+        assertEquals(0, snapshot.getOrdersPlaced());
+        assertEquals(0, snapshot.getCheckoutLatency().getCount());
+        assertEquals(0, CheckoutMetrics.DISABLED.start());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.eshop.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MoneyProkopTest {
+    @Test
+    void testOf_WithBigDecimal_StoresMinorUnits_Success_ProkopTest() {
+        Money money = Money.of(new BigDecimal("29.99"));
+        assertEquals(2999, money.getMinorUnits());
+        assertEquals(Money.DEFAULT_CURRENCY, money.getCurrency());
+        assertEquals(new BigDecimal("29.99"), money.toBigDecimal());
+    }
+
+    @Test
+    void testOf_WithExtraDigits_RoundsHalfEven_Success_ProkopTest() {
+        assertEquals(2, Money.of(new BigDecimal("0.025")).getMinorUnits());
+        assertEquals(4, Money.of(new BigDecimal("0.035")).getMinorUnits());
+        assertThrowsExactly(ArithmeticException.class, () -> Money.of(new BigDecimal("0.025"), Money.DEFAULT_CURRENCY, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void testOfExact_WithExtraDigitsOrOverflow_Fail_ProkopTest() {
+        assertEquals(1000, Money.ofExact(new BigDecimal("10.000")).getMinorUnits());
+        assertThrowsExactly(IllegalArgumentException.class, () -> Money.ofExact(new BigDecimal("10.005")));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Money.ofExact(new BigDecimal("1e30")));
+    }
+
+    @Test
+    void testArithmetic_Exact_Success_ProkopTest() {
+        Money price = Money.of(new BigDecimal("19.99"));
+        assertEquals(Money.of(new BigDecimal("59.97")), price.times(3));
+        assertEquals(Money.of(new BigDecimal("39.98")), price.plus(price));
+        assertTrue(price.minus(price.times(2)).isNegative());
+        assertThrowsExactly(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE, Money.DEFAULT_CURRENCY).times(2));
+    }
+
+    @Test
+    void testArithmetic_WithDifferentCurrencies_Fail_ProkopTest() {
+        Money dollars = Money.of(BigDecimal.TEN);
+        Money euros = Money.of(BigDecimal.TEN, Currency.getInstance("EUR"));
+        assertThrowsExactly(IllegalArgumentException.class, () -> dollars.plus(euros));
+    }
+
+    @Test
+    void testOf_WithZeroDigitCurrency_Success_ProkopTest() {
+        Money yen = Money.of(new BigDecimal("1500"), Currency.getInstance("JPY"));
+        assertEquals(1500, yen.getMinorUnits());
+        assertEquals(new BigDecimal("1500"), yen.toBigDecimal());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.eshop.order;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.money.Money;
+import com.example.eshop.payment.PaymentProcessor;
+import com.example.eshop.payment.PaymentResult;
+import com.example.eshop.payment.SimulatedLatencyPaymentProcessor;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdempotencyCacheProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final AtomicInteger payments = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+
+    private Cart cart() {
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        return cart;
+    }
+
+    private OrderService service(IdempotencyCache cache) {
+        OrderService orderService = new OrderService(amount -> {
+            payments.incrementAndGet();
+            return true;
+        });
+        orderService.setIdempotencyCache(cache);
+        return orderService;
+    }
+
+    @Test
+    void testPlaceOrder_RetriedWithSameKey_ReturnsOriginalWithoutPayingAgain_ProkopTest() {
+        OrderService orderService = service(new IdempotencyCache(100, Duration.ofMinutes(10), now::get));
+        Cart cart = cart();
+
+        Order first = orderService.placeOrder(cart, "checkout-1");
+        // The cart was emptied by the first request; the retry must not fail on it
+        Order retry = orderService.placeOrder(cart, "checkout-1");
+        Order other = orderService.placeOrder(cart(), "checkout-2");
+
+        assertSame(first, retry);
+        assertNotEquals(first.getId(), other.getId());
+        assertEquals(2, payments.get());
+    }
+
+    @Test
+    void testPlaceOrderAsync_ConcurrentDuplicates_CoalesceIntoOneCheckout_ProkopTest() throws Exception {
+        AtomicInteger slowPayments = new AtomicInteger();
+        PaymentProcessor slow = new SimulatedLatencyPaymentProcessor(Duration.ofMillis(200)) {
+            @Override
+            public CompletableFuture<PaymentResult> processPaymentAsync(Money amount, Executor executor) {
+                slowPayments.incrementAndGet();
+                return super.processPaymentAsync(amount, executor);
+            }
+        };
+        OrderService orderService = new OrderService(slow);
+        orderService.setIdempotencyCache(new IdempotencyCache(100, Duration.ofMinutes(10)));
+        Cart cart = cart();
+
+        List<CompletableFuture<Order>> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(orderService.placeOrderAsync(cart, "checkout-1"));
+        }
+
+        Order first = requests.getFirst().get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Order> request : requests) {
+            assertSame(first, request.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(OrderStatus.PAID, first.getStatus());
+        assertEquals(1, slowPayments.get());
+    }
+
+    @Test
+    void testPlaceOrder_FirstAttemptThrows_RetryRunsAgain_ProkopTest() {
+        AtomicInteger attempts = new AtomicInteger();
+        OrderService orderService = new OrderService(amount -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Gateway unavailable");
+            }
+            return true;
+        });
+        orderService.setIdempotencyCache(new IdempotencyCache(100, Duration.ofMinutes(10)));
+        Cart cart = cart();
+
+        assertThrowsExactly(IllegalStateException.class, () -> orderService.placeOrder(cart, "checkout-1"));
+        Order retry = orderService.placeOrder(cart, "checkout-1");
+
+        assertEquals(OrderStatus.PAID, retry.getStatus());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testPlaceOrder_AfterTimeToLive_PlacesNewOrder_ProkopTest() {
+        OrderService orderService = service(new IdempotencyCache(100, Duration.ofMinutes(10), now::get));
+
+        Order first = orderService.placeOrder(cart(), "checkout-1");
+        now.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertSame(first, orderService.placeOrder(cart(), "checkout-1"));
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        Order later = orderService.placeOrder(cart(), "checkout-1");
+
+        assertNotEquals(first.getId(), later.getId());
+        assertEquals(2, payments.get());
+    }
+
+    @Test
+    void testExecute_OverEntryLimit_DropsOldestSettledKey_ProkopTest() {
+        IdempotencyCache cache = new IdempotencyCache(2, Duration.ofMinutes(10), now::get);
+        OrderService orderService = service(cache);
+
+        Order first = orderService.placeOrder(cart(), "checkout-1");
+        orderService.placeOrder(cart(), "checkout-2");
+        orderService.placeOrder(cart(), "checkout-3");
+
+        assertEquals(2, cache.size());
+        assertNotEquals(first.getId(), orderService.placeOrder(cart(), "checkout-1").getId());
+    }
+
+    @Test
+    void testPlaceOrderAsync_FirstRequestCancelled_RetryGetsSameOrderOnceSettled_ProkopTest() throws Exception {
+        CompletableFuture<PaymentResult> gateway = new CompletableFuture<>();
+        IdempotencyCache cache = new IdempotencyCache(100, Duration.ofMinutes(10), now::get);
+        OrderService orderService = pendingGatewayService(gateway, Duration.ofMillis(50));
+        orderService.setIdempotencyCache(cache);
+
+        assertTrue(orderService.placeOrderAsync(cart(), "checkout-1").cancel(false));
+        Order unresolved = orderService.placeOrderAsync(cart(), "checkout-1").get(5, TimeUnit.SECONDS);
+        assertEquals(OrderStatus.PAYMENT_UNRESOLVED, unresolved.getStatus());
+
+        // Still unsettled, so the key outlives the time to live
+        now.addAndGet(Duration.ofMinutes(30).toNanos());
+        assertSame(unresolved, orderService.placeOrderAsync(cart(), "checkout-1").get(5, TimeUnit.SECONDS));
+        gateway.complete(PaymentResult.approved());
+        assertEquals(OrderStatus.PAID, unresolved.getStatus());
+        assertSame(unresolved, orderService.placeOrderAsync(cart(), "checkout-1").get(5, TimeUnit.SECONDS));
+        assertEquals(1, payments.get());
+
+        // Settled just now, so the time to live starts from here
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+        Order later = orderService.placeOrderAsync(cart(), "checkout-1").get(5, TimeUnit.SECONDS);
+        assertNotEquals(unresolved.getId(), later.getId());
+        assertEquals(2, payments.get());
+    }
+
+    @Test
+    void testExecute_OverEntryLimitBehindRunningCheckout_StillDropsSettledKeys_ProkopTest() {
+        IdempotencyCache cache = new IdempotencyCache(2, Duration.ofMinutes(10), now::get);
+        CompletableFuture<Order> running = cache.execute("running", CompletableFuture::new);
+        OrderService orderService = service(cache);
+
+        orderService.placeOrder(cart(), "checkout-1");
+        orderService.placeOrder(cart(), "checkout-2");
+        orderService.placeOrder(cart(), "checkout-3");
+
+        assertEquals(2, cache.size());
+        assertFalse(running.isDone());
+    }
+
+    private OrderService pendingGatewayService(CompletableFuture<PaymentResult> gateway, Duration timeout) {
+        return new OrderService(new PaymentProcessor() {
+            @Override
+            public boolean processPayment(BigDecimal amount) {
+                throw new AssertionError("Only the async path is used");
+            }
+
+            @Override
+            public CompletableFuture<PaymentResult> processPaymentAsync(Money amount, Executor executor) {
+                payments.incrementAndGet();
+                return gateway;
+            }
+        }, timeout, 10);
+    }
+
+    @Test
+    void testPlaceOrder_WithoutCacheOrKey_ThrowsException_ProkopTest() {
+        OrderService withoutCache = new OrderService(amount -> true);
+        assertThrowsExactly(IllegalStateException.class, () -> withoutCache.placeOrder(cart(), "checkout-1"));
+
+        OrderService orderService = service(new IdempotencyCache(100, Duration.ofMinutes(10)));
+        assertThrowsExactly(IllegalArgumentException.class, () -> orderService.placeOrder(cart(), " "));
+        assertEquals(0, payments.get());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.eshop.order;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.payment.CreditCardPaymentProcessor;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import com.example.eshop.product.ProductCatalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalOrderRepositoryProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+    private final ProductCatalog catalog = new ProductCatalog();
+
+    JournalOrderRepositoryProkopTest() {
+        catalog.addAll(List.of(physical, digital));
+    }
+
+    private Order placeOrder(OrderService orderService) {
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+        return orderService.placeOrder(cart);
+    }
+
+    @Test
+    void testReplay_AfterReopen_RestoresOrders_ProkopTest(@TempDir Path dir) throws Exception {
+        Order placed;
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+            orderService.setOrderRepository(repository);
+            placed = placeOrder(orderService);
+        }
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            Order restored = repository.findById(placed.getId()).orElseThrow();
+            assertEquals(OrderStatus.PAID, restored.getStatus());
+            assertEquals(placed.getTotal(), restored.getTotal());
+            assertEquals(placed.getOrderDate(), restored.getOrderDate());
+            assertEquals(physical, restored.getItems().get(0).getProduct());
+            assertEquals(2, restored.getItems().get(0).getQuantity());
+            assertEquals(digital, restored.getItems().get(1).getProduct());
+        }
+    }
+
+    @Test
+    void testReplay_AfterPriceChange_KeepsPricesOrderWasSoldFor_ProkopTest(@TempDir Path dir) throws Exception {
+        Order placed;
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+            orderService.setOrderRepository(repository);
+            placed = placeOrder(orderService);
+        }
+        physical.setPrice(new BigDecimal("99.00"));
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            Order restored = repository.findById(placed.getId()).orElseThrow();
+            assertEquals(placed.getItems().get(0).getUnitPrice(), restored.getItems().get(0).getUnitPrice());
+            assertEquals(placed.getItems().get(0).getLineTotal(), restored.getItems().get(0).getLineTotal());
+        }
+    }
+
+    @Test
+    void testSave_FromManyThreadsAcrossSegments_AllReplayed_ProkopTest(@TempDir Path dir) throws Exception {
+        List<Order> placed = new ArrayList<>();
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, 4096, id -> catalog.findById(id).orElse(null))) {
+            OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+            orderService.setOrderRepository(repository);
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        Order order = placeOrder(orderService);
+                        synchronized (placed) {
+                            placed.add(order);
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 1);
+        }
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, 4096, id -> catalog.findById(id).orElse(null))) {
+            assertEquals(400, repository.findAll().size());
+            for (Order order : placed) {
+                assertTrue(repository.findById(order.getId()).isPresent());
+            }
+        }
+    }
+
+    @Test
+    void testReplay_WithTornTail_KeepsEarlierOrdersAndAppends_ProkopTest(@TempDir Path dir) throws Exception {
+        Order first;
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            first = placeOrder(new OrderService(new CreditCardPaymentProcessor()));
+            repository.save(first);
+            repository.save(placeOrder(new OrderService(new CreditCardPaymentProcessor())));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Corrupt the second record's payload so its checksum no longer matches
+            channel.write(ByteBuffer.wrap(new byte[] {42, 42, 42, 42}), 100);
+        }
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            assertEquals(1, repository.findAll().size());
+            assertTrue(repository.findById(first.getId()).isPresent());
+            repository.save(placeOrder(new OrderService(new CreditCardPaymentProcessor())));
+        }
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            assertEquals(2, repository.findAll().size());
+        }
+    }
+
+    @Test
+    void testReplay_WithRemovedProduct_SkipsAndReportsOrder_ProkopTest(@TempDir Path dir) throws Exception {
+        Product discontinued = new DigitalProduct("Discontinued", "No longer sold", BigDecimal.valueOf(5.00d), "http://example.com/old");
+        catalog.add(discontinued);
+        Order kept;
+        Order orphaned;
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+            orderService.setOrderRepository(repository);
+            kept = placeOrder(orderService);
+            Cart cart = new Cart();
+            cart.addItem(discontinued, 1);
+            orphaned = orderService.placeOrder(cart);
+        }
+        catalog.remove(discontinued);
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, id -> catalog.findById(id).orElse(null))) {
+            assertTrue(repository.findById(kept.getId()).isPresent());
+            assertTrue(repository.findById(orphaned.getId()).isEmpty());
+            assertEquals(Set.of(orphaned.getId()), repository.getUnresolvedOrders());
+            assertEquals(1, repository.findAll().size());
+        }
+    }
+
+    @Test
+    void testFindById_BeyondCacheCapacity_ReadsLatestRecordFromJournal_ProkopTest(@TempDir Path dir) throws Exception {
+        List<Order> placed = new ArrayList<>();
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, 4096, id -> catalog.findById(id).orElse(null), 2)) {
+            OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+            orderService.setOrderRepository(repository);
+            for (int i = 0; i < 50; i++) {
+                placed.add(placeOrder(orderService));
+            }
+            Order shipped = placed.getFirst();
+            shipped.setStatus(OrderStatus.SHIPPED);
+            repository.save(shipped);
+            for (int i = 1; i < placed.size(); i++) {
+                assertEquals(placed.get(i).getTotal(), repository.findById(placed.get(i).getId()).orElseThrow().getTotal());
+            }
+            assertEquals(OrderStatus.SHIPPED, repository.findById(shipped.getId()).orElseThrow().getStatus());
+            assertEquals(50, repository.findAll().stream().count());
+        }
+        try (JournalOrderRepository repository = new JournalOrderRepository(dir, 4096, id -> catalog.findById(id).orElse(null), 2)) {
+            assertEquals(OrderStatus.SHIPPED, repository.findById(placed.getFirst().getId()).orElseThrow().getStatus());
+            assertEquals(50, repository.findAll().size());
+        }
+    }
+}
@@ -2,15 +2,29 @@ package com.example.eshop.order;
 
 import com.example.eshop.cart.Cart;
 import com.example.eshop.cart.CartItem;
+import com.example.eshop.money.Money;
 import com.example.eshop.payment.CreditCardPaymentProcessor;
 import com.example.eshop.payment.PaymentProcessor;
+import com.example.eshop.payment.PaymentResult;
+import com.example.eshop.payment.SimulatedLatencyPaymentProcessor;
 import com.example.eshop.product.DigitalProduct;
 import com.example.eshop.product.PhysicalProduct;
 import com.example.eshop.product.Product;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -105,4 +119,219 @@ public class OrderProkopTest {
         assertNotNull(order.get());
         assertEquals(OrderStatus.CANCELLED, order.get().getStatus());
     }
+
+    @Test
+    void testPlaceOrderAsync_WithSimulatedLatency_StatusPaid_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        OrderService orderService = new OrderService(new SimulatedLatencyPaymentProcessor(Duration.ofMillis(50)));
+        List<CompletableFuture<Order>> orders = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Cart cart = new Cart();
+            cart.addItem(product, 1);
+            orders.add(orderService.placeOrderAsync(cart));
+            assertTrue(cart.isEmpty());
+        }
+        for (CompletableFuture<Order> order : orders) {
+            assertEquals(OrderStatus.PAID, order.get(5, TimeUnit.SECONDS).getStatus());
+        }
+    }
+
+    @Test
+    void testPlaceOrderAsync_WithSlowPayment_TimesOutUnresolvedUntilGatewayAnswers_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        CompletableFuture<PaymentResult> gateway = new CompletableFuture<>();
+        OrderService orderService = new OrderService(new PaymentProcessor() {
+            @Override
+            public boolean processPayment(BigDecimal amount) {
+                throw new AssertionError("Only the async path is used");
+            }
+
+            @Override
+            public CompletableFuture<PaymentResult> processPaymentAsync(Money amount, Executor executor) {
+                return gateway;
+            }
+        }, Duration.ofMillis(50), 1);
+        Cart cart = new Cart();
+        cart.addItem(product, 1);
+
+        Order order = orderService.placeOrderAsync(cart).get(5, TimeUnit.SECONDS);
+        assertEquals(OrderStatus.PAYMENT_UNRESOLVED, order.getStatus());
+        // The gateway call is still running, so it still holds the only permit
+        Cart second = new Cart();
+        second.addItem(product, 1);
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> orderService.placeOrderAsync(second).get());
+        assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+
+        gateway.complete(PaymentResult.approved());
+        assertEquals(OrderStatus.PAID, order.getStatus());
+    }
+
+    @Test
+    void testReconcilePayment_CancelledCheckout_SettledFromGatewayRecords_ProkopTest() {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        OrderService orderService = new OrderService(new SimulatedLatencyPaymentProcessor(Duration.ofSeconds(10)), Duration.ofSeconds(5), 10);
+        List<Order> unresolved = new ArrayList<>();
+        orderService.addStatusListener((order, from, to) -> unresolved.add(order));
+        Cart cart = new Cart();
+        cart.addItem(product, 1);
+
+        assertTrue(orderService.placeOrderAsync(cart).cancel(false));
+        Order order = unresolved.getFirst();
+        assertEquals(OrderStatus.PAYMENT_UNRESOLVED, order.getStatus());
+        assertThrowsExactly(IllegalStateException.class, () -> orderService.retryPayment(order));
+        assertEquals(OrderStatus.PAYMENT_FAILED, orderService.reconcilePayment(order, false).getStatus());
+        assertThrowsExactly(IllegalStateException.class, () -> orderService.reconcilePayment(order, true));
+    }
+
+    @Test
+    void testPlaceOrderAsync_OverInFlightLimit_Rejected_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        OrderService orderService = new OrderService(new SimulatedLatencyPaymentProcessor(Duration.ofMillis(200)), Duration.ofSeconds(5), 1);
+        Cart first = new Cart();
+        first.addItem(product, 1);
+        Cart second = new Cart();
+        second.addItem(product, 1);
+        CompletableFuture<Order> accepted = orderService.placeOrderAsync(first);
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> orderService.placeOrderAsync(second).get());
+        assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+        assertFalse(second.isEmpty());
+        assertEquals(OrderStatus.PAID, accepted.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(OrderStatus.PAID, orderService.placeOrderAsync(second).get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void testPlaceOrderAsync_WithEmptyCart_Fails_ProkopTest() {
+        OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> orderService.placeOrderAsync(new Cart()).get());
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    private static Order paidOrder() {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Cart cart = new Cart();
+        cart.addItem(product, 1);
+        return new OrderService(new CreditCardPaymentProcessor()).placeOrder(cart);
+    }
+
+    @Test
+    void testTransition_AlongLifecycle_Success_ProkopTest() {
+        Order order = paidOrder();
+        assertTrue(order.transition(OrderStatus.PAID, OrderStatus.SHIPPED));
+        assertTrue(order.transition(OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+        assertEquals(OrderStatus.DELIVERED, order.getStatus());
+    }
+
+    @Test
+    void testTransition_FromStaleStatus_ReturnsFalse_ProkopTest() {
+        Order order = paidOrder();
+        assertFalse(order.transition(OrderStatus.PENDING, OrderStatus.CANCELLED));
+        assertEquals(OrderStatus.PAID, order.getStatus());
+    }
+
+    @Test
+    void testSetStatus_IllegalTransition_Throws_ProkopTest() {
+        Order order = paidOrder();
+        order.setStatus(OrderStatus.CANCELLED);
+        assertThrowsExactly(IllegalStateException.class, () -> order.setStatus(OrderStatus.SHIPPED));
+        assertThrowsExactly(IllegalStateException.class, () -> order.transition(OrderStatus.PENDING, OrderStatus.DELIVERED));
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+    }
+
+    @Test
+    void testTransition_ConcurrentShipAndCancel_OnlyOneWins_ProkopTest() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            Order order = paidOrder();
+            AtomicInteger notifications = new AtomicInteger();
+            order.addStatusListener((changed, from, to) -> notifications.incrementAndGet());
+            CountDownLatch start = new CountDownLatch(1);
+            CompletableFuture<Boolean> ship = CompletableFuture.supplyAsync(() -> {
+                awaitQuietly(start);
+                return order.transition(OrderStatus.PAID, OrderStatus.SHIPPED);
+            });
+            CompletableFuture<Boolean> cancel = CompletableFuture.supplyAsync(() -> {
+                awaitQuietly(start);
+                return order.transition(OrderStatus.PAID, OrderStatus.CANCELLED);
+            });
+            start.countDown();
+            boolean shipped = ship.get(5, TimeUnit.SECONDS);
+            boolean cancelled = cancel.get(5, TimeUnit.SECONDS);
+            assertTrue(shipped ^ cancelled);
+            assertEquals(shipped ? OrderStatus.SHIPPED : OrderStatus.CANCELLED, order.getStatus());
+            assertEquals(1, notifications.get());
+        }
+    }
+
+    @Test
+    void testStatusListener_FromService_ReceivesTransitions_ProkopTest() {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Cart cart = new Cart();
+        cart.addItem(product, 1);
+        OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+        List<String> changes = new ArrayList<>();
+        orderService.addStatusListener((order, from, to) -> changes.add(from + "->" + to));
+
+        Order order = orderService.placeOrder(cart);
+        order.setStatus(OrderStatus.SHIPPED);
+        assertEquals(List.of("PENDING->PAID", "PAID->SHIPPED"), changes);
+    }
+
+    @Test
+    void testStatusListener_WhenOneThrows_OthersStillNotified_ProkopTest() {
+        Order order = paidOrder();
+        AtomicInteger notified = new AtomicInteger();
+        order.addStatusListener((changed, from, to) -> {
+            throw new IllegalStateException("listener failed");
+        });
+        order.addStatusListener((changed, from, to) -> notified.incrementAndGet());
+        assertDoesNotThrow(() -> order.setStatus(OrderStatus.SHIPPED));
+        assertEquals(1, notified.get());
+        assertEquals(OrderStatus.SHIPPED, order.getStatus());
+    }
+
+    @Test
+    void testStatusListener_WhenOneThrows_SettledOrderStillRecorded_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        OrderService orderService = new OrderService(new SimulatedLatencyPaymentProcessor(Duration.ofMillis(10)));
+        OrderStore store = new OrderStore();
+        orderService.setOrderRepository(store);
+        orderService.addStatusListener((order, from, to) -> {
+            throw new IllegalStateException("listener failed");
+        });
+        Cart cart = new Cart();
+        cart.addItem(product, 1);
+
+        Order order = orderService.placeOrderAsync(cart).get(5, TimeUnit.SECONDS);
+        assertEquals(OrderStatus.PAID, order.getStatus());
+        assertEquals(List.of(order), store.findByStatus(OrderStatus.PAID).toList());
+    }
+
+    @Test
+    void testPlaceOrder_ItemsFrozenAfterCheckout_ProkopTest() {
+        Order order = paidOrder();
+        assertThrowsExactly(UnsupportedOperationException.class, () -> order.getItems().getFirst().setQuantity(5));
+        assertEquals(1, order.getItems().getFirst().getQuantity());
+    }
+
+    @Test
+    void testRestoreOrder_AfterPriceChange_KeepsPriceItWasSoldFor_ProkopTest() {
+        Product product = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        CartItem sold = new CartItem(product, 3);
+        product.setPrice(BigDecimal.valueOf(20.00d));
+
+        Order restored = new Order(UUID.randomUUID(), List.of(sold), Money.of(BigDecimal.valueOf(30.00d)), LocalDateTime.now(), OrderStatus.PAID);
+        assertEquals(Money.of(BigDecimal.valueOf(30.00d)), restored.getItems().getFirst().getLineTotal());
+        assertEquals(Money.of(BigDecimal.valueOf(10.00d)), restored.getItems().getFirst().getUnitPrice());
+
+        CartItem decoded = new CartItem(product, 2, Money.of(BigDecimal.valueOf(10.00d)));
+        product.setPrice(BigDecimal.valueOf(25.00d));
+        assertEquals(Money.of(BigDecimal.valueOf(20.00d)), decoded.getLineTotal());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package com.example.eshop.order;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.CartItem;
+import com.example.eshop.money.Money;
+import com.example.eshop.payment.CreditCardPaymentProcessor;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderStoreProkopTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+
+    private static Order order(LocalDateTime orderDate, OrderStatus status, Product... products) {
+        List<CartItem> items = Arrays.stream(products).map(product -> new CartItem(product, 1)).toList();
+        return new Order(UUID.randomUUID(), items, Money.of(BigDecimal.TEN), orderDate, status);
+    }
+
+    @Test
+    void testFindByStatus_InLastHour_ReturnsOnlyMatchingOldestFirst_ProkopTest() {
+        OrderStore store = new OrderStore();
+        Order old = order(NOW.minusHours(2), OrderStatus.PAID, physical);
+        Order recentPaid = order(NOW.minusMinutes(30), OrderStatus.PAID, physical);
+        Order newestPaid = order(NOW.minusMinutes(5), OrderStatus.PAID, digital);
+        Order recentPending = order(NOW.minusMinutes(10), OrderStatus.PENDING, physical);
+        for (Order order : List.of(newestPaid, old, recentPending, recentPaid)) {
+            store.save(order);
+        }
+
+        assertEquals(List.of(recentPaid, newestPaid), store.findByStatus(OrderStatus.PAID, NOW.minusHours(1), NOW).toList());
+        assertEquals(List.of(old, recentPaid, newestPaid), store.findByStatus(OrderStatus.PAID).toList());
+        assertEquals(4, store.findPlacedBetween(NOW.minusDays(1), NOW).count());
+    }
+
+    @Test
+    void testFindByProduct_WithPagination_ReturnsPageInDateOrder_ProkopTest() {
+        OrderStore store = new OrderStore();
+        for (int i = 0; i < 10; i++) {
+            store.save(order(NOW.minusMinutes(10 - i), OrderStatus.PAID, i % 2 == 0 ? physical : digital));
+        }
+        store.save(order(NOW, OrderStatus.PAID, physical, digital));
+
+        List<Order> page = store.findByProduct(physical.getId()).skip(2).limit(2).toList();
+        assertEquals(2, page.size());
+        assertEquals(NOW.minusMinutes(6), page.get(0).getOrderDate());
+        assertEquals(NOW.minusMinutes(4), page.get(1).getOrderDate());
+        assertEquals(6, store.findByProduct(digital.getId()).count());
+        assertEquals(0, store.findByProduct(UUID.randomUUID()).count());
+    }
+
+    @Test
+    void testStatusChange_AfterSave_MovesOrderBetweenStatusIndexes_ProkopTest() {
+        OrderStore store = new OrderStore();
+        Order order = order(NOW, OrderStatus.PAID, physical);
+        store.save(order);
+
+        order.setStatus(OrderStatus.SHIPPED);
+        assertEquals(0, store.findByStatus(OrderStatus.PAID).count());
+        assertEquals(List.of(order), store.findByStatus(OrderStatus.SHIPPED).toList());
+    }
+
+    @Test
+    void testSave_WithReplacementInstance_ReplacesIndexes_ProkopTest() {
+        OrderStore store = new OrderStore();
+        Order original = order(NOW, OrderStatus.PAID, physical);
+        store.save(original);
+        Order restored = new Order(original.getId(), original.getItems(), original.getTotal(), NOW, OrderStatus.CANCELLED);
+        store.save(restored);
+
+        original.setStatus(OrderStatus.SHIPPED);
+        assertEquals(1, store.size());
+        assertEquals(0, store.findByStatus(OrderStatus.SHIPPED).count());
+        assertEquals(List.of(restored), store.findByStatus(OrderStatus.CANCELLED).toList());
+        assertEquals(List.of(restored), store.findByProduct(physical.getId()).toList());
+    }
+
+    @Test
+    void testFindPlacedBetween_WithReversedRange_Throws_ProkopTest() {
+        OrderStore store = new OrderStore();
+        assertThrowsExactly(IllegalArgumentException.class, () -> store.findPlacedBetween(NOW, NOW.minusHours(1)));
+    }
+
+    @Test
+    void testPlaceOrder_WithStoreAsRepository_Indexed_ProkopTest() {
+        OrderStore store = new OrderStore();
+        OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+        orderService.setOrderRepository(store);
+        Cart cart = new Cart();
+        cart.addItem(physical, 1);
+        Order placed = orderService.placeOrder(cart);
+
+        assertTrue(store.findById(placed.getId()).isPresent());
+        assertEquals(List.of(placed), store.findByStatus(OrderStatus.PAID).toList());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.eshop.order;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.inventory.Inventory;
+import com.example.eshop.money.Money;
+import com.example.eshop.payment.CircuitBreaker;
+import com.example.eshop.payment.CreditCardPaymentProcessor;
+import com.example.eshop.payment.FaultInjectingPaymentProcessor;
+import com.example.eshop.payment.PaymentOutcomeUnknownException;
+import com.example.eshop.payment.PaymentProcessor;
+import com.example.eshop.payment.PaymentRequest;
+import com.example.eshop.payment.PaymentResult;
+import com.example.eshop.payment.ResilientPaymentProcessor;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PaymentBatcherProkopTest {
+    @Test
+    void testPlaceOrderBatched_FullBatches_OneCallPerBatch_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        PaymentProcessor processor = new PaymentProcessor() {
+            @Override
+            public boolean processPayment(BigDecimal amount) {
+                throw new AssertionError("Batched orders must not be charged one at a time");
+            }
+
+            @Override
+            public List<PaymentResult> processPayments(List<PaymentRequest> requests) {
+                batchSizes.add(requests.size());
+                List<PaymentResult> results = new ArrayList<>();
+                for (int i = 0; i < requests.size(); i++) {
+                    results.add(i % 2 == 0 ? PaymentResult.approved() : PaymentResult.declined("Card expired"));
+                }
+                return results;
+            }
+        };
+        OrderService orderService = new OrderService(processor);
+        try (PaymentBatcher batcher = new PaymentBatcher(processor, 5, Duration.ofSeconds(10))) {
+            orderService.setPaymentBatcher(batcher);
+            List<CompletableFuture<Order>> orders = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Cart cart = new Cart();
+                cart.addItem(product, 1);
+                orders.add(orderService.placeOrderBatched(cart));
+                assertTrue(cart.isEmpty());
+            }
+            for (int i = 0; i < orders.size(); i++) {
+                OrderStatus expected = (i % 5) % 2 == 0 ? OrderStatus.PAID : OrderStatus.CANCELLED;
+                assertEquals(expected, orders.get(i).get(5, TimeUnit.SECONDS).getStatus());
+            }
+        }
+        assertEquals(List.of(5, 5), batchSizes);
+    }
+
+    @Test
+    void testPlaceOrderBatched_PartialBatch_FlushedAfterWindow_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        PaymentProcessor processor = new CreditCardPaymentProcessor();
+        OrderService orderService = new OrderService(processor);
+        try (PaymentBatcher batcher = new PaymentBatcher(processor, 100, Duration.ofMillis(20))) {
+            orderService.setPaymentBatcher(batcher);
+            Cart cart = new Cart();
+            cart.addItem(product, 2);
+            assertEquals(OrderStatus.PAID, orderService.placeOrderBatched(cart).get(5, TimeUnit.SECONDS).getStatus());
+        }
+    }
+
+    @Test
+    void testPlaceOrderBatched_WithoutBatcher_Fails_ProkopTest() {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        Cart cart = new Cart();
+        cart.addItem(product, 2);
+        OrderService orderService = new OrderService(new CreditCardPaymentProcessor());
+        assertThrowsExactly(IllegalStateException.class, () -> orderService.placeOrderBatched(cart));
+    }
+
+    @Test
+    void testProcessPayments_DefaultAdapter_DeclinesOnlyFailingRequest_ProkopTest() {
+        PaymentProcessor processor = new CreditCardPaymentProcessor();
+        List<PaymentResult> results = processor.processPayments(List.of(
+                new PaymentRequest(UUID.randomUUID(), Money.of(BigDecimal.TEN)),
+                new PaymentRequest(UUID.randomUUID(), Money.of(BigDecimal.valueOf(-1)))));
+        assertTrue(results.get(0).isApproved());
+        assertFalse(results.get(1).isApproved());
+    }
+
+    @Test
+    void testPlaceOrderBatched_FaultyGateway_FailedOrUnresolvedNotCancelled_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        FaultInjectingPaymentProcessor gateway = new FaultInjectingPaymentProcessor(new CreditCardPaymentProcessor());
+        PaymentProcessor processor = new ResilientPaymentProcessor(gateway, new CircuitBreaker(100, 100, 0.5, Duration.ofMillis(50)),
+                8, Duration.ofMillis(50));
+        OrderService orderService = new OrderService(processor);
+        Inventory inventory = new Inventory();
+        inventory.addStock(product, 5);
+        orderService.setInventory(inventory);
+        try (PaymentBatcher batcher = new PaymentBatcher(processor, 1, Duration.ofSeconds(10))) {
+            orderService.setPaymentBatcher(batcher);
+
+            // A failing gateway charged nothing: the order waits for retryPayment with its stock
+            gateway.setFailureRate(1.0);
+            Cart failing = new Cart();
+            failing.addItem(product, 1);
+            Order failed = orderService.placeOrderBatched(failing).get(5, TimeUnit.SECONDS);
+            assertEquals(OrderStatus.PAYMENT_FAILED, failed.getStatus());
+
+            // A gateway that doesn't answer in time may have charged: the order must be reconciled
+            gateway.setFailureRate(0.0);
+            gateway.setDelay(Duration.ofMillis(500));
+            Cart hanging = new Cart();
+            hanging.addItem(product, 2);
+            Order unresolved = orderService.placeOrderBatched(hanging).get(5, TimeUnit.SECONDS);
+            assertEquals(OrderStatus.PAYMENT_UNRESOLVED, unresolved.getStatus());
+            assertThrowsExactly(IllegalStateException.class, () -> orderService.retryPayment(unresolved));
+        }
+        assertEquals(3, inventory.getReserved(product));
+    }
+
+    @Test
+    void testPlaceOrderBatched_WholeBatchOutcomeUnknown_OrderUnresolved_ProkopTest() throws Exception {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        PaymentProcessor processor = new PaymentProcessor() {
+            @Override
+            public boolean processPayment(BigDecimal amount) {
+                throw new AssertionError("Batched orders must not be charged one at a time");
+            }
+
+            @Override
+            public List<PaymentResult> processPayments(List<PaymentRequest> requests) {
+                throw new PaymentOutcomeUnknownException("Batch sent but no answer", null);
+            }
+        };
+        OrderService orderService = new OrderService(processor);
+        Inventory inventory = new Inventory();
+        inventory.addStock(product, 5);
+        orderService.setInventory(inventory);
+        try (PaymentBatcher batcher = new PaymentBatcher(processor, 1, Duration.ofSeconds(10))) {
+            orderService.setPaymentBatcher(batcher);
+            Cart cart = new Cart();
+            cart.addItem(product, 2);
+            assertEquals(OrderStatus.PAYMENT_UNRESOLVED, orderService.placeOrderBatched(cart).get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(2, inventory.getReserved(product));
+    }
+}
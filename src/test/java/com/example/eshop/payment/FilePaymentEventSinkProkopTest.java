@@ -0,0 +1,78 @@
+package com.example.eshop.payment;
+
+import com.example.eshop.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilePaymentEventSinkProkopTest {
+    @Test
+    void testProcessPayment_WithFileSink_WritesEvent_ProkopTest(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("payments.log");
+        try (FilePaymentEventSink sink = new FilePaymentEventSink(file, 1024)) {
+            assertTrue(new CreditCardPaymentProcessor(sink).processPayment(Money.of(new BigDecimal("29.99"))));
+        }
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.getFirst().endsWith(",29.99,USD,APPROVED"));
+    }
+
+    @Test
+    void testPaymentProcessed_FromManyThreads_EveryEventWrittenOrDropped_ProkopTest(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("payments.log");
+        long dropped;
+        try (FilePaymentEventSink sink = new FilePaymentEventSink(file, 256)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int j = 0; j < 5000; j++) {
+                        sink.paymentProcessed(j, Money.DEFAULT_CURRENCY, j % 2 == 0);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            sink.close();
+            dropped = sink.getDroppedCount();
+        }
+        assertEquals(4 * 5000, Files.readAllLines(file).size() + dropped);
+    }
+
+    @Test
+    void testClose_WhileThreadsPublish_EveryEventWrittenOrDropped_ProkopTest(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("payments.log");
+        FilePaymentEventSink sink = new FilePaymentEventSink(file, 64);
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                started.countDown();
+                for (int j = 0; j < 20_000; j++) {
+                    sink.paymentProcessed(j, Money.DEFAULT_CURRENCY, true);
+                }
+            }));
+        }
+        started.await();
+        sink.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4 * 20_000, Files.readAllLines(file).size() + sink.getDroppedCount());
+    }
+
+    @Test
+    void testCreate_WithCapacityNotPowerOfTwo_Fail_ProkopTest(@TempDir Path dir) {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new FilePaymentEventSink(dir.resolve("payments.log"), 1000));
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.eshop.payment;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.inventory.Inventory;
+import com.example.eshop.money.Money;
+import com.example.eshop.order.Order;
+import com.example.eshop.order.OrderService;
+import com.example.eshop.order.OrderStatus;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResilientPaymentProcessorProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Money amount = Money.of(new BigDecimal("29.99"));
+
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker(4, 4, 0.5, Duration.ofMillis(50));
+    }
+
+    @Test
+    void testProcessPayment_FailingGateway_BreakerOpensThenClosesAfterTrial_ProkopTest() throws Exception {
+        FaultInjectingPaymentProcessor gateway = new FaultInjectingPaymentProcessor(new CreditCardPaymentProcessor());
+        gateway.setFailureRate(1.0);
+        ResilientPaymentProcessor processor = new ResilientPaymentProcessor(gateway, breaker(), 8, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrowsExactly(PaymentUnavailableException.class, () -> processor.processPayment(amount));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, processor.getCircuitBreaker().getState());
+
+        // While open, calls fail fast without reaching the gateway
+        assertThrowsExactly(PaymentUnavailableException.class, () -> processor.processPayment(amount));
+        assertEquals(4, gateway.getCalls());
+        assertEquals(1, processor.snapshot().getRejectedByBreaker());
+
+        gateway.setFailureRate(0.0);
+        Thread.sleep(80);
+        assertTrue(processor.processPayment(amount));
+        assertEquals(CircuitBreaker.State.CLOSED, processor.getCircuitBreaker().getState());
+        assertEquals(0.0, processor.snapshot().getFailureRate());
+    }
+
+    @Test
+    void testProcessPaymentAsync_BulkheadFull_RejectsImmediately_ProkopTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PaymentProcessor gateway = value -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+        ResilientPaymentProcessor processor = new ResilientPaymentProcessor(gateway, breaker(), 1, Duration.ofSeconds(5));
+
+        Executor executor = task -> Thread.ofVirtual().start(task);
+        CompletableFuture<PaymentResult> first = processor.processPaymentAsync(amount, executor);
+        CompletableFuture<PaymentResult> second = processor.processPaymentAsync(amount, executor);
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(PaymentUnavailableException.class, rejected.getCause());
+        assertEquals(1, processor.snapshot().getRejectedByBulkhead());
+        assertEquals(1, processor.snapshot().getInFlight());
+
+        release.countDown();
+        assertTrue(first.get(1, TimeUnit.SECONDS).isApproved());
+        assertEquals(0, processor.snapshot().getInFlight());
+    }
+
+    @Test
+    void testProcessPayment_HangingGateway_OutcomeUnknownAndPermitHeldUntilReturn_ProkopTest() throws InterruptedException {
+        CountDownLatch never = new CountDownLatch(1);
+        PaymentProcessor gateway = value -> {
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+        ResilientPaymentProcessor processor = new ResilientPaymentProcessor(gateway, breaker(), 1, Duration.ofMillis(50));
+
+        PaymentOutcomeUnknownException e = assertThrowsExactly(PaymentOutcomeUnknownException.class, () -> processor.processPayment(amount));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        ResilienceSnapshot snapshot = processor.snapshot();
+        assertEquals(1, snapshot.getTimeouts());
+        assertEquals(1, snapshot.getFailures());
+        // The gateway call is still running, so it still holds its permit
+        assertEquals(1, snapshot.getInFlight());
+
+        never.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processor.snapshot().getInFlight() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, processor.snapshot().getInFlight());
+    }
+
+    @Test
+    void testProcessPayment_WithRetries_FailedAttemptRetried_ProkopTest() {
+        AtomicInteger attempts = new AtomicInteger();
+        PaymentProcessor gateway = value -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Gateway hiccup");
+            }
+            return true;
+        };
+        ResilientPaymentProcessor processor = new ResilientPaymentProcessor(gateway, breaker(), 8, Duration.ofSeconds(5), 2, null);
+
+        assertTrue(processor.processPayment(amount));
+        assertEquals(2, attempts.get());
+        assertEquals(1, processor.snapshot().getRetries());
+    }
+
+    @Test
+    void testProcessPayment_WithHedging_FastSecondAttemptWins_ProkopTest() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        PaymentProcessor gateway = value -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return true;
+        };
+        ResilientPaymentProcessor processor = new ResilientPaymentProcessor(gateway, breaker(), 8, Duration.ofSeconds(5), 2, Duration.ofMillis(20));
+
+        assertTrue(processor.processPayment(amount));
+        assertEquals(2, attempts.get());
+        assertEquals(1, processor.snapshot().getHedges());
+        release.countDown();
+    }
+
+    @Test
+    void testProcessPayment_InvalidAmount_PassedThroughNotCountedAsFailure_ProkopTest() {
+        AtomicInteger attempts = new AtomicInteger();
+        PaymentProcessor gateway = value -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("Amount must be positive");
+        };
+        ResilientPaymentProcessor processor = new ResilientPaymentProcessor(gateway, breaker(), 8, Duration.ofSeconds(5), 3, null);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrowsExactly(IllegalArgumentException.class, () -> processor.processPayment(amount));
+        }
+        assertEquals(5, attempts.get());
+        assertEquals(0, processor.snapshot().getFailures());
+        assertEquals(CircuitBreaker.State.CLOSED, processor.getCircuitBreaker().getState());
+    }
+
+    @Test
+    void testProcessPayment_AmountFinerThanCent_RefusedNotRounded_ProkopTest() {
+        AtomicInteger charges = new AtomicInteger();
+        PaymentProcessor gateway = value -> charges.incrementAndGet() > 0;
+        BigDecimal subCent = new BigDecimal("10.005");
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> new CreditCardPaymentProcessor().processPayment(subCent));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new ResilientPaymentProcessor(gateway, breaker(), 8, Duration.ofSeconds(5)).processPayment(subCent));
+        assertEquals(0, charges.get());
+    }
+
+    @Test
+    void testPlaceOrder_GatewayUnavailable_PaymentFailedKeepsStockUntilRetried_ProkopTest() {
+        FaultInjectingPaymentProcessor gateway = new FaultInjectingPaymentProcessor(new CreditCardPaymentProcessor());
+        gateway.setFailureRate(1.0);
+        OrderService orderService = new OrderService(new ResilientPaymentProcessor(gateway, breaker(), 8, Duration.ofSeconds(5)));
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 5);
+        orderService.setInventory(inventory);
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+
+        Order order = orderService.placeOrder(cart);
+        assertEquals(OrderStatus.PAYMENT_FAILED, order.getStatus());
+        assertTrue(cart.isEmpty());
+        assertEquals(2, inventory.getReserved(physical));
+
+        // Still unavailable: the order waits
+        assertEquals(OrderStatus.PAYMENT_FAILED, orderService.retryPayment(order).getStatus());
+
+        gateway.setFailureRate(0.0);
+        assertEquals(OrderStatus.PAID, orderService.retryPayment(order).getStatus());
+        assertEquals(2, inventory.getReserved(physical));
+        assertThrowsExactly(IllegalStateException.class, () -> orderService.retryPayment(order));
+    }
+
+    @Test
+    void testPlaceOrder_GatewayTimesOut_PaymentUnresolvedAndNotRetried_ProkopTest() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger charges = new AtomicInteger();
+        PaymentProcessor gateway = value -> {
+            charges.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+        OrderService orderService = new OrderService(new ResilientPaymentProcessor(gateway, breaker(), 8, Duration.ofMillis(50)));
+        Inventory inventory = new Inventory();
+        inventory.addStock(physical, 5);
+        orderService.setInventory(inventory);
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+
+        Order order = orderService.placeOrder(cart);
+        release.countDown();
+        assertEquals(OrderStatus.PAYMENT_UNRESOLVED, order.getStatus());
+        assertEquals(2, inventory.getReserved(physical));
+
+        // The charge may have gone through: retrying could charge twice
+        assertThrowsExactly(IllegalStateException.class, () -> orderService.retryPayment(order));
+        assertEquals(1, charges.get());
+
+        assertEquals(OrderStatus.PAID, orderService.reconcilePayment(order, true).getStatus());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.eshop.product;
+
+import com.example.eshop.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductCatalogProkopTest {
+    @Test
+    void testFindById_AfterAdd_Success_ProkopTest() {
+        Product product = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+        ProductCatalog catalog = new ProductCatalog();
+        assertTrue(catalog.add(product));
+        assertFalse(catalog.add(product));
+        assertEquals(product, catalog.findById(product.getId()).orElseThrow());
+        assertTrue(catalog.findById(UUID.randomUUID()).isEmpty());
+        assertEquals(1, catalog.size());
+    }
+
+    @Test
+    void testAdd_OtherInstanceWithSameId_Refused_ProkopTest() {
+        UUID id = UUID.randomUUID();
+        Product original = new DigitalProduct(id, "Original", "First copy", BigDecimal.valueOf(5), "http://example.com/a");
+        Product copy = new DigitalProduct(id, "Copy", "Decoded copy", BigDecimal.valueOf(7), "http://example.com/b");
+        ProductCatalog catalog = new ProductCatalog();
+        assertTrue(catalog.add(original));
+        assertFalse(catalog.add(copy));
+        assertEquals(0, catalog.addAll(List.of(copy)));
+        assertEquals(1, catalog.size());
+        assertSame(original, catalog.findById(id).orElseThrow());
+        assertTrue(catalog.findByNamePrefix("Copy").isEmpty());
+        // The refused copy stays free to join another catalog
+        assertTrue(new ProductCatalog().add(copy));
+    }
+
+    @Test
+    void testFindByPriceRange_AfterSetPrice_Reindexed_ProkopTest() {
+        Product cheap = new DigitalProduct("Cheap", "Cheap e-book", BigDecimal.valueOf(5), "http://example.com/cheap");
+        Product pricey = new PhysicalProduct("Pricey", "Pricey laptop", BigDecimal.valueOf(1500), 2.5, BigDecimal.TEN);
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.addAll(List.of(cheap, pricey));
+        assertEquals(List.of(cheap), catalog.findByPriceRange(Money.of(BigDecimal.ZERO), Money.of(BigDecimal.TEN)));
+        cheap.setPrice(BigDecimal.valueOf(50));
+        assertTrue(catalog.findByPriceRange(Money.of(BigDecimal.ZERO), Money.of(BigDecimal.TEN)).isEmpty());
+        assertEquals(List.of(cheap), catalog.findByPriceRange(Money.of(BigDecimal.valueOf(50)), Money.of(BigDecimal.valueOf(100))));
+    }
+
+    @Test
+    void testFindByNamePrefix_AfterSetName_Reindexed_ProkopTest() {
+        Product laptop = new PhysicalProduct("Gaming Laptop", "High-end gaming laptop", BigDecimal.valueOf(1500), 2.5, BigDecimal.TEN);
+        Product ebook = new DigitalProduct("Java Mastery", "Advanced Java Programming E-book", BigDecimal.valueOf(29.99), "http://example.com/java");
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.addAll(List.of(laptop, ebook));
+        assertEquals(List.of(laptop), catalog.findByNamePrefix("gam"));
+        laptop.setName("Office Laptop");
+        assertTrue(catalog.findByNamePrefix("gam").isEmpty());
+        assertEquals(List.of(laptop), catalog.findByNamePrefix("Office"));
+        assertEquals(2, catalog.findByNamePrefix("").size());
+    }
+
+    @Test
+    void testFindByType_PartitionsBySubtype_ProkopTest() {
+        PhysicalProduct laptop = new PhysicalProduct("Gaming Laptop", "High-end gaming laptop", BigDecimal.valueOf(1500), 2.5, BigDecimal.TEN);
+        DigitalProduct ebook = new DigitalProduct("Java Mastery", "Advanced Java Programming E-book", BigDecimal.valueOf(29.99), "http://example.com/java");
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.addAll(List.of(laptop, ebook));
+        assertEquals(List.of(laptop), catalog.findByType(PhysicalProduct.class));
+        assertEquals(List.of(ebook), catalog.findByType(DigitalProduct.class));
+        assertEquals(2, catalog.findByType(Product.class).size());
+    }
+
+    @Test
+    void testRemove_DropsFromIndexes_ProkopTest() {
+        Product product = new PhysicalProduct("Gaming Laptop", "High-end gaming laptop", BigDecimal.valueOf(1500), 2.5, BigDecimal.TEN);
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.add(product);
+        assertThrowsExactly(IllegalStateException.class, () -> new ProductCatalog().add(product));
+        assertTrue(catalog.remove(product));
+        assertTrue(catalog.findByNamePrefix("gaming").isEmpty());
+        assertTrue(catalog.findByType(PhysicalProduct.class).isEmpty());
+        product.setName("Renamed");
+        assertTrue(catalog.findByNamePrefix("renamed").isEmpty());
+        assertTrue(new ProductCatalog().add(product));
+    }
+}
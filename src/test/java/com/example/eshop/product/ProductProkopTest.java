@@ -1,8 +1,10 @@
 package com.example.eshop.product;
 
+import com.example.eshop.money.Money;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -70,4 +72,27 @@ public class ProductProkopTest {
         assertNotEquals(new DigitalProduct("Renamed", "Updated", product.getPrice(), null), product);
         assertEquals(productHashBeforeUpdate, product.hashCode());
     }
+
+    @Test
+    void testPrice_FinerThanCents_KeptButNotCharged_ProkopTest() {
+        DigitalProduct product = new DigitalProduct("Sub-cent", "Priced below a cent", new BigDecimal("0.125"), null);
+        assertEquals(new BigDecimal("0.125"), product.getPrice());
+        assertThrowsExactly(IllegalArgumentException.class, product::getUnitPrice);
+
+        product.setPrice(new BigDecimal("0.120"));
+        assertEquals(12, product.getUnitPrice().getMinorUnits());
+        assertEquals(96, product.getUnitPrice().times(8).getMinorUnits());
+
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.add(product);
+        product.setPrice(new BigDecimal("9.999"));
+        assertEquals(new BigDecimal("9.999"), product.getPrice());
+        assertEquals(List.of(product), catalog.findByPriceRange(Money.of(BigDecimal.TEN), Money.of(BigDecimal.TEN)));
+    }
+
+    @Test
+    void testPrice_BeyondMinorUnitRange_Rejected_ProkopTest() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new DigitalProduct("Priceless", "Priced beyond a long of cents", new BigDecimal("1e30"), null));
+    }
 }
@@ -0,0 +1,158 @@
+package com.example.eshop.promotion;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.cart.CompactCart;
+import com.example.eshop.money.Money;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class PromotionPlanProkopTest {
+    private final Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 10, BigDecimal.valueOf(2.5));
+    private final Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+
+    private static Money usd(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+
+    @Test
+    void testEvaluate_OverlappingLineRules_BestDiscountWins_ProkopTest() {
+        PromotionPlan plan = PromotionPlan.compile(List.of(
+                new PercentageDiscount("5% off everything", RuleTarget.everything(), BigDecimal.valueOf(5)),
+                new PercentageDiscount("20% off physical", RuleTarget.type(PhysicalProduct.class), BigDecimal.valueOf(20)),
+                new PercentageDiscount("10% off this product", RuleTarget.product(physical), BigDecimal.valueOf(10))));
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+
+        PromotionResult result = new CartPromotions(plan).evaluate(cart);
+        assertEquals(usd("8.00"), result.getLineDiscount(physical));
+        assertEquals(usd("0.50"), result.getLineDiscount(digital));
+        assertEquals(usd("41.50"), result.getTotal());
+        assertEquals(usd("50.00"), result.getSubtotal());
+    }
+
+    @Test
+    void testEvaluate_BuyTwoGetOneAndTiers_ProkopTest() {
+        PromotionPlan plan = PromotionPlan.compile(List.of(
+                new BuyXGetYFree("3 for 2", RuleTarget.product(digital), 2, 1),
+                new TieredDiscount("Volume", RuleTarget.product(physical), Map.of(10, BigDecimal.valueOf(5), 50, BigDecimal.valueOf(15)))));
+        Cart cart = new Cart();
+        cart.addItem(digital, 7);
+        cart.addItem(physical, 9);
+        CartPromotions promotions = new CartPromotions(plan);
+
+        assertEquals(usd("20.00"), promotions.evaluate(cart).getLineDiscount(digital));
+        assertEquals(usd("0.00"), promotions.evaluate(cart).getLineDiscount(physical));
+        cart.setQuantity(physical, 10);
+        assertEquals(usd("10.00"), promotions.evaluate(cart).getLineDiscount(physical));
+        cart.setQuantity(physical, 50);
+        assertEquals(usd("150.00"), promotions.evaluate(cart).getLineDiscount(physical));
+    }
+
+    @Test
+    void testEvaluate_Bundle_DiscountsCompleteSetsOnly_ProkopTest() {
+        PromotionPlan plan = PromotionPlan.compile(List.of(
+                new BundleDiscount("Starter kit", Map.of(physical, 1, digital, 2), usd("35.00"))));
+        Cart cart = new Cart();
+        cart.addItem(physical, 3);
+        cart.addItem(digital, 4);
+        CartPromotions promotions = new CartPromotions(plan);
+
+        // Two complete kits, each 5.00 below its regular 40.00
+        assertEquals(usd("10.00"), promotions.evaluate(cart).getBundleDiscount());
+        cart.removeItem(digital);
+        assertEquals(usd("0.00"), promotions.evaluate(cart).getBundleDiscount());
+        cart.addItem(digital, 2);
+        assertEquals(usd("75.00"), cart.getDiscountedTotal(promotions));
+    }
+
+    @Test
+    void testEvaluate_BundleWithLineDiscount_SetCostsBundlePrice_ProkopTest() {
+        PromotionPlan plan = PromotionPlan.compile(List.of(
+                new PercentageDiscount("10% off this product", RuleTarget.product(physical), BigDecimal.valueOf(10)),
+                new BundleDiscount("Starter kit", Map.of(physical, 1, digital, 2), usd("35.00"))));
+        Cart cart = new Cart();
+        cart.addItem(physical, 3);
+        cart.addItem(digital, 4);
+        CartPromotions promotions = new CartPromotions(plan);
+
+        // Each kit costs 38.00 after the 2.00 line discount, so the bundle only takes 3.00 more off it
+        PromotionResult result = promotions.evaluate(cart);
+        assertEquals(usd("6.00"), result.getLineDiscount(physical));
+        assertEquals(usd("6.00"), result.getBundleDiscount());
+        // Two kits at 35.00 plus one more physical at 18.00
+        assertEquals(usd("88.00"), result.getTotal());
+    }
+
+    @Test
+    void testEvaluate_OverlappingBundles_EachUnitBundledOnce_ProkopTest() {
+        Product a = new DigitalProduct("Product A", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        Product b = new DigitalProduct("Product B", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        Product c = new DigitalProduct("Product C", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        PromotionPlan plan = PromotionPlan.compile(List.of(
+                new BundleDiscount("A with B", Map.of(a, 1, b, 1), usd("15.00")),
+                new BundleDiscount("A with C", Map.of(a, 1, c, 1), usd("14.00"))));
+        Cart cart = new Cart();
+        cart.addItem(a, 1);
+        cart.addItem(b, 1);
+        cart.addItem(c, 1);
+        CartPromotions promotions = new CartPromotions(plan);
+
+        // Only one A: the bundle saving more gets it and the other bundle gets nothing
+        PromotionResult result = promotions.evaluate(cart);
+        assertEquals(usd("6.00"), result.getBundleDiscount());
+        assertEquals(usd("24.00"), result.getTotal());
+
+        // A second A completes the other bundle too
+        cart.addItem(a, 1);
+        assertEquals(usd("11.00"), promotions.evaluate(cart).getBundleDiscount());
+        cart.removeItem(c);
+        assertEquals(usd("5.00"), promotions.evaluate(cart).getBundleDiscount());
+        assertEquals(usd("25.00"), new CartPromotions(plan).evaluate(cart).getTotal());
+    }
+
+    @Test
+    void testEvaluate_IncrementalAfterChanges_MatchesFreshEvaluation_ProkopTest() {
+        List<PromotionRule> rules = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Product product = new DigitalProduct("Product " + i, "An example digital product", BigDecimal.valueOf(i % 50 + 1), "http://example.com/download");
+            products.add(product);
+            rules.add(new PercentageDiscount("Promo " + i, RuleTarget.product(product), BigDecimal.valueOf(i % 30)));
+        }
+        rules.add(new BundleDiscount("Pair", Map.of(products.get(0), 1, products.get(1), 1), usd("1.00")));
+        PromotionPlan plan = PromotionPlan.compile(rules);
+        CompactCart cart = new CompactCart();
+        for (int i = 0; i < 500; i++) {
+            cart.addItem(products.get(i), i % 7 + 1);
+        }
+        CartPromotions promotions = new CartPromotions(plan);
+        promotions.evaluate(cart);
+
+        cart.setQuantity(products.get(3), 40);
+        cart.removeItem(products.get(1));
+        cart.addItem(products.get(1999), 3);
+        products.get(10).setPrice(BigDecimal.valueOf(99));
+        PromotionResult incremental = promotions.evaluate(cart);
+        PromotionResult fresh = new CartPromotions(plan).evaluate(cart);
+        assertEquals(fresh.getTotal(), incremental.getTotal());
+        assertEquals(fresh.getBundleDiscount(), incremental.getBundleDiscount());
+        assertEquals(fresh.getLineDiscount(products.get(10)), incremental.getLineDiscount(products.get(10)));
+    }
+
+    @Test
+    void testPercentageDiscount_OutOfRange_Throws_ProkopTest() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new PercentageDiscount("Too generous", RuleTarget.everything(), BigDecimal.valueOf(120)));
+    }
+}
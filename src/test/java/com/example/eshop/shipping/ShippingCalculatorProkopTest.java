@@ -0,0 +1,130 @@
+package com.example.eshop.shipping;
+
+import com.example.eshop.cart.Cart;
+import com.example.eshop.money.Money;
+import com.example.eshop.product.DigitalProduct;
+import com.example.eshop.product.PhysicalProduct;
+import com.example.eshop.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class ShippingCalculatorProkopTest {
+    private static Money usd(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+
+    private static RateTable rates() {
+        return new RateTable()
+                .addTier(ShippingZone.DOMESTIC, 1, usd("4.00"))
+                .addTier(ShippingZone.DOMESTIC, 10, usd("9.00"))
+                .addTier(ShippingZone.DOMESTIC, 50, usd("25.00"))
+                .addTier(ShippingZone.INTERNATIONAL, 10, usd("30.00"));
+    }
+
+    @Test
+    void testCalculateTotalWithShipping_PhysicalAndDigital_AddsTierRateAndSurcharges_ProkopTest() {
+        Product physical = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.valueOf(20.00d), 2.5, new BigDecimal("1.50"));
+        Product digital = new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download");
+        Cart cart = new Cart();
+        cart.addItem(physical, 2);
+        cart.addItem(digital, 1);
+        ShippingCalculator shipping = new ShippingCalculator(rates(), 0.5, 64);
+
+        // 5 kg falls in the 10 kg tier: 9.00 + 2 * 1.50 surcharge on top of the 50.00 goods total
+        assertEquals(new BigDecimal("62.00"), cart.calculateTotalWithShipping(shipping, ShippingZone.DOMESTIC));
+        assertEquals(usd("33.00"), shipping.quote(cart.getItems(), ShippingZone.INTERNATIONAL));
+    }
+
+    @Test
+    void testQuote_DigitalOnly_FreeShipping_ProkopTest() {
+        Cart cart = new Cart();
+        cart.addItem(new DigitalProduct("Test Digital Product", "An example digital product", BigDecimal.valueOf(10.00d), "http://example.com/download"), 1);
+        ShippingCalculator shipping = new ShippingCalculator(rates(), 0.5, 64);
+        assertEquals(Money.zero(Money.DEFAULT_CURRENCY), shipping.quote(cart.getItems(), ShippingZone.CONTINENTAL));
+        assertEquals(0, shipping.getCacheMisses());
+    }
+
+    @Test
+    void testQuote_LargeCart_OneCachedLookupPerQuote_ProkopTest() {
+        Cart cart = new Cart();
+        for (int i = 0; i < 500; i++) {
+            cart.addItem(new PhysicalProduct("Part " + i, "A small part", BigDecimal.ONE, 0.05, BigDecimal.ZERO), 1);
+        }
+        ShippingCalculator shipping = new ShippingCalculator(rates(), 0.5, 64);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(usd("25.00"), shipping.quote(cart.getItems(), ShippingZone.DOMESTIC));
+        }
+        assertEquals(1, shipping.getCacheMisses());
+        assertEquals(9, shipping.getCacheHits());
+    }
+
+    @Test
+    void testRateFor_BucketBoundaries_StayInTier_ProkopTest() {
+        ShippingCalculator shipping = new ShippingCalculator(rates(), 0.1, 64);
+        assertEquals(usd("4.00"), shipping.rateFor(0.1 + 0.2 + 0.7, ShippingZone.DOMESTIC));
+        assertEquals(usd("9.00"), shipping.rateFor(1.01, ShippingZone.DOMESTIC));
+    }
+
+    @Test
+    void testRateFor_TierBoundaryInsideBucket_RatesActualWeight_ProkopTest() {
+        RateTable table = new RateTable()
+                .addTier(ShippingZone.DOMESTIC, 2.5, usd("6.00"))
+                .addTier(ShippingZone.CONTINENTAL, 2.5, usd("8.00"))
+                .addTier(ShippingZone.CONTINENTAL, 5, usd("12.00"));
+        ShippingCalculator shipping = new ShippingCalculator(table, 1, 64);
+
+        assertEquals(usd("6.00"), shipping.rateFor(2.4, ShippingZone.DOMESTIC));
+        assertThrowsExactly(IllegalArgumentException.class, () -> shipping.rateFor(2.6, ShippingZone.DOMESTIC));
+        assertEquals(usd("8.00"), shipping.rateFor(2.4, ShippingZone.CONTINENTAL));
+        assertEquals(usd("12.00"), shipping.rateFor(2.6, ShippingZone.CONTINENTAL));
+        assertEquals(0, shipping.getCacheSize());
+    }
+
+    @Test
+    void testRateFor_TierAddedAfterCaching_CacheDropped_ProkopTest() {
+        RateTable table = rates();
+        ShippingCalculator shipping = new ShippingCalculator(table, 1, 64);
+        assertEquals(usd("9.00"), shipping.rateFor(3, ShippingZone.DOMESTIC));
+
+        table.addTier(ShippingZone.DOMESTIC, 5, usd("7.00"));
+        assertEquals(usd("7.00"), shipping.rateFor(3, ShippingZone.DOMESTIC));
+        assertEquals(1, shipping.getCacheSize());
+    }
+
+    @Test
+    void testQuote_FractionalSurcharge_RoundedOncePerLine_ProkopTest() {
+        Product part = new PhysicalProduct("Test Physical Product", "An example physical product", BigDecimal.ONE, 0.1, new BigDecimal("0.004"));
+        Cart cart = new Cart();
+        cart.addItem(part, 10);
+        ShippingCalculator shipping = new ShippingCalculator(rates(), 0.5, 64);
+
+        // 10 * 0.004 = 0.04 on top of the 4.00 tier, rather than 10 * 0.00
+        assertEquals(usd("4.04"), shipping.quote(cart.getItems(), ShippingZone.DOMESTIC));
+    }
+
+    @Test
+    void testRateFor_OverCapacity_EvictsLeastRecentlyUsed_ProkopTest() {
+        ShippingCalculator shipping = new ShippingCalculator(rates(), 1, 2);
+        shipping.rateFor(1, ShippingZone.DOMESTIC);
+        shipping.rateFor(2, ShippingZone.DOMESTIC);
+        shipping.rateFor(1, ShippingZone.DOMESTIC);
+        shipping.rateFor(3, ShippingZone.DOMESTIC); // evicts the 2 kg bucket
+        shipping.rateFor(1, ShippingZone.DOMESTIC);
+        shipping.rateFor(2, ShippingZone.DOMESTIC);
+
+        assertEquals(2, shipping.getCacheSize());
+        assertEquals(2, shipping.getCacheHits());
+        assertEquals(4, shipping.getCacheMisses());
+    }
+
+    @Test
+    void testRateFor_BeyondHeaviestTier_Throws_ProkopTest() {
+        ShippingCalculator shipping = new ShippingCalculator(rates(), 1, 8);
+        assertThrowsExactly(IllegalArgumentException.class, () -> shipping.rateFor(11, ShippingZone.INTERNATIONAL));
+        assertThrowsExactly(IllegalArgumentException.class, () -> shipping.rateFor(1, ShippingZone.CONTINENTAL));
+    }
+}